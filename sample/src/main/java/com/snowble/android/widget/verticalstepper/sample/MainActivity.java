@@ -2,8 +2,6 @@ package com.snowble.android.widget.verticalstepper.sample;
 
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
-import android.text.Editable;
-import android.text.TextUtils;
 import android.view.View;
 import android.widget.EditText;
 
@@ -11,6 +9,8 @@ import com.snowble.android.widget.verticalstepper.StepValidator;
 import com.snowble.android.widget.verticalstepper.ValidationResult;
 import com.snowble.android.widget.verticalstepper.VerticalStepper;
 
+import java.io.File;
+
 public class MainActivity extends AppCompatActivity {
 
     private VerticalStepper stepper;
@@ -18,33 +18,42 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        VerticalStepper.setTracingEnabled(BuildConfig.DEBUG);
         setContentView(R.layout.activity_main);
         stepper = (VerticalStepper) findViewById(R.id.activity_main);
         addStepValidation();
+        addDraftPersistence();
+        if (BuildConfig.DEBUG) {
+            addDebugOverlayToggle();
+        }
+    }
+
+    private void addDebugOverlayToggle() {
+        stepper.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                stepper.setDebugOverlayEnabled(!stepper.isDebugOverlayEnabled());
+                return true;
+            }
+        });
+    }
+
+    private void addDraftPersistence() {
+        stepper.enableDraftPersistence(new File(getFilesDir(), "stepper_draft"));
+        stepper.registerDraftField((EditText) findViewById(R.id.required_text));
+        stepper.registerDraftField((EditText) findViewById(R.id.optional_text));
     }
 
     private void addStepValidation() {
+        // The rules declared in the layout have already passed by the time the validator is called.
         final EditText reqText = (EditText) findViewById(R.id.required_text);
-        final EditText optText = (EditText) findViewById(R.id.optional_text);
         stepper.setStepValidator(new StepValidator() {
             @Override
             public ValidationResult validate(View v, boolean isOptional) {
                 if (v.getId() == R.id.step_with_requirement) {
-                    Editable text = reqText.getText();
-                    if (TextUtils.isEmpty(text)) {
-                        return new ValidationResult("Text cannot be empty");
-                    }
-                    stepper.setStepSummary(R.id.step_with_requirement, "Satisfied requirement: " + text);
+                    stepper.setStepSummary(R.id.step_with_requirement, "Satisfied requirement: " + reqText.getText());
                 } else if (v.getId() == R.id.optional_step) {
-                    Editable text = optText.getText();
-                    if (TextUtils.isEmpty(text)) {
-                        return ValidationResult.VALID_INCOMPLETE_RESULT;
-                    } else if (text.charAt(text.length() - 1) != '.'){
-                        return new ValidationResult("Text must end in a period");
-                    } else {
-                        stepper.setStepSummary(R.id.optional_step, "Satisfied requirement ending in period.");
-                        return ValidationResult.VALID_COMPLETE_RESULT;
-                    }
+                    stepper.setStepSummary(R.id.optional_step, "Satisfied requirement ending in period.");
                 }
                 return ValidationResult.VALID_COMPLETE_RESULT;
             }
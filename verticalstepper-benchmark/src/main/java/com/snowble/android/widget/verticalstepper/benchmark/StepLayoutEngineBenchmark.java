@@ -0,0 +1,113 @@
+package com.snowble.android.widget.verticalstepper.benchmark;
+
+import com.snowble.android.widget.verticalstepper.core.StepLayout;
+import com.snowble.android.widget.verticalstepper.core.StepLayoutEngine;
+import com.snowble.android.widget.verticalstepper.core.StepMetrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the geometry that the stepper computes on every measure, layout and draw pass.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StepLayoutEngineBenchmark {
+    private static final int ICON_DIMENSION = 72;
+    private static final int ICON_MARGIN_RIGHT = 36;
+    private static final int ICON_MARGIN_VERTICAL = 24;
+
+    @Param({"10", "100", "1000"})
+    int stepCount;
+
+    private StepMetrics metrics;
+    private StepLayout layout;
+    private float[] titleWidths;
+    private float[] subtitleWidths;
+    private float[] titleBottoms;
+    private float[] subtitleBottoms;
+    private boolean[] active;
+
+    @Setup
+    public void setUp() {
+        metrics = new StepMetrics();
+        metrics.setStepCount(stepCount);
+        layout = new StepLayout();
+        titleWidths = new float[stepCount];
+        subtitleWidths = new float[stepCount];
+        titleBottoms = new float[stepCount];
+        subtitleBottoms = new float[stepCount];
+        active = new boolean[stepCount];
+        for (int i = 0; i < stepCount; i++) {
+            titleWidths[i] = 200f + i % 7 * 13.5f;
+            subtitleWidths[i] = i % 3 == 0 ? 0f : 180f + i % 5 * 21.25f;
+            titleBottoms[i] = 52.5f;
+            subtitleBottoms[i] = subtitleWidths[i] == 0f ? 0f : 38.75f;
+            active[i] = i == stepCount / 2;
+
+            int bottomMargin = i < stepCount - 1 ? (active[i] ? 144 : 120) : 0;
+            metrics.setActive(i, active[i]);
+            int decoratorHeight = StepLayoutEngine.calculateDecoratorHeight(ICON_DIMENSION, titleBottoms[i],
+                    subtitleBottoms[i]);
+            int dyToTextBottom = StepLayoutEngine.calculateYDistanceToTextBottom(active[i], titleBottoms[i],
+                    subtitleBottoms[i], 48);
+            metrics.setDecorator(i, decoratorHeight, dyToTextBottom);
+            metrics.setActiveViewsHeight(i, active[i] ? 900 : 0, active[i] ? 948 : 0);
+            metrics.setBottomMarginHeight(i, bottomMargin);
+        }
+    }
+
+    /**
+     * What {@code Step.measureStepDecoratorHeight} and {@code Step.calculateStepDecoratorWidth} compute once the text
+     * has been measured, for every step.
+     */
+    @Benchmark
+    public void decoratorDimensions(Blackhole blackhole) {
+        int iconWidth = StepLayoutEngine.calculateDecoratorIconWidth(ICON_DIMENSION, ICON_MARGIN_RIGHT);
+        for (int i = 0; i < stepCount; i++) {
+            float textWidth = StepLayoutEngine.calculateDecoratorTextWidth(titleWidths[i], subtitleWidths[i]);
+            blackhole.consume(StepLayoutEngine.calculateDecoratorWidth(iconWidth, textWidth));
+            blackhole.consume(StepLayoutEngine.calculateDecoratorHeight(ICON_DIMENSION, titleBottoms[i],
+                    subtitleBottoms[i]));
+        }
+    }
+
+    /**
+     * What the draw pass computes to position each step and its connector.
+     */
+    @Benchmark
+    public void yDistancesToNextStep(Blackhole blackhole) {
+        for (int i = 0; i < stepCount; i++) {
+            int dyToTextBottom = StepLayoutEngine.calculateYDistanceToTextBottom(active[i], titleBottoms[i],
+                    subtitleBottoms[i], 48);
+            int dyToNextStep = StepLayoutEngine.calculateYDistanceToNextStep(active[i], dyToTextBottom, 900, 120);
+            blackhole.consume(StepLayoutEngine.calculateConnectorStopY(dyToNextStep, ICON_MARGIN_VERTICAL));
+        }
+    }
+
+    /**
+     * The whole stepper's height and every step's position, which {@code calculateHeight}, the layout pass and the
+     * draw pass each compute.
+     */
+    @Benchmark
+    public StepLayout compute() {
+        StepLayoutEngine.compute(metrics, layout);
+        return layout;
+    }
+}
@@ -0,0 +1,58 @@
+package com.snowble.android.widget.verticalstepper.benchmark;
+
+import com.snowble.android.widget.verticalstepper.core.StepperController;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the step transitions triggered by header taps and the continue button.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StepperControllerBenchmark {
+    @Param({"10", "100", "1000"})
+    int stepCount;
+
+    private StepperController controller;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        controller = new StepperController(stepCount);
+        controller.goToStep(0);
+    }
+
+    @Benchmark
+    public int toggleStep() {
+        int index = next;
+        next = (next + 1) % stepCount;
+        controller.toggleStep(index);
+        return controller.getActiveStepIndex();
+    }
+
+    @Benchmark
+    public int attemptStepCompletion() {
+        int index = controller.getActiveStepIndex();
+        if (index < 0) {
+            controller.goToStep(0);
+            index = 0;
+        }
+        return controller.attemptStepCompletion(index);
+    }
+}
@@ -0,0 +1,57 @@
+package com.snowble.android.widget.verticalstepper.core;
+
+import java.util.Arrays;
+
+/**
+ * The output of {@link StepLayoutEngine#compute(StepMetrics, StepLayout)}. One instance can be reused for every
+ * computation.
+ */
+public final class StepLayout {
+    private int size;
+    int height;
+    int[] tops = new int[0];
+    int[] yDistancesToTextBottom = new int[0];
+    int[] yDistancesToNextStep = new int[0];
+
+    void setStepCount(int count) {
+        if (count > tops.length) {
+            tops = Arrays.copyOf(tops, count);
+            yDistancesToTextBottom = Arrays.copyOf(yDistancesToTextBottom, count);
+            yDistancesToNextStep = Arrays.copyOf(yDistancesToNextStep, count);
+        }
+        size = count;
+    }
+
+    public int getStepCount() {
+        return size;
+    }
+
+    /**
+     * @return the height of all steps, excluding padding.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the top of the step relative to the top of the first step.
+     */
+    public int getTop(int index) {
+        return tops[checkIndex(index)];
+    }
+
+    public int getYDistanceToTextBottom(int index) {
+        return yDistancesToTextBottom[checkIndex(index)];
+    }
+
+    public int getYDistanceToNextStep(int index) {
+        return yDistancesToNextStep[checkIndex(index)];
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size + ".");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,99 @@
+package com.snowble.android.widget.verticalstepper.core;
+
+/**
+ * The geometry formulas that {@code Step} uses to measure, lay out and draw itself and the layout of a whole stepper
+ * from the metrics of its steps. They have no Android dependencies so they can run on any thread or on the JVM.
+ * <p>
+ * The formulas' positions are relative to the top of the step.
+ */
+public final class StepLayoutEngine {
+    private StepLayoutEngine() {
+    }
+
+    public static int calculateDecoratorIconWidth(int iconDimension, int iconMarginRight) {
+        return iconDimension + iconMarginRight;
+    }
+
+    public static float calculateDecoratorTextWidth(float titleWidth, float subtitleWidth) {
+        return Math.max(titleWidth, subtitleWidth);
+    }
+
+    public static int calculateDecoratorWidth(int decoratorIconWidth, float decoratorTextWidth) {
+        return decoratorIconWidth + (int) decoratorTextWidth;
+    }
+
+    /**
+     * @param titleBottom the bottom of the title relative to the top of the step.
+     * @param subtitleBottom the bottom of the subtitle relative to the bottom of the title.
+     */
+    public static int calculateDecoratorHeight(int iconDimension, float titleBottom, float subtitleBottom) {
+        return Math.max(iconDimension, (int) (titleBottom + subtitleBottom));
+    }
+
+    /**
+     * @param titleBottom the bottom of the title relative to the top of the step.
+     * @param subtitleBottom the bottom of the subtitle relative to the bottom of the title.
+     */
+    public static int calculateYDistanceToTextBottom(boolean isActive, float titleBottom, float subtitleBottom,
+                                                     int titleMarginBottomToInnerView) {
+        int dyToTextBottom = (int) titleBottom;
+        if (!isActive) {
+            dyToTextBottom += subtitleBottom;
+        } else {
+            dyToTextBottom += titleMarginBottomToInnerView;
+        }
+        return dyToTextBottom;
+    }
+
+    /**
+     * @param activeViewsHeight the height of the inner view and continue button. It's ignored if the step is
+     *                          inactive.
+     */
+    public static int calculateYDistanceToNextStep(boolean isActive, int yDistanceToTextBottom, int activeViewsHeight,
+                                                   int bottomMargin) {
+        int dyToNextStep = yDistanceToTextBottom;
+        if (isActive) {
+            dyToNextStep += activeViewsHeight;
+        }
+        return dyToNextStep + bottomMargin;
+    }
+
+    public static int calculateConnectorStartY(int iconDimension, int iconMarginVertical) {
+        return iconDimension + iconMarginVertical;
+    }
+
+    public static int calculateConnectorStopY(int yDistanceToNextStep, int iconMarginVertical) {
+        return yDistanceToNextStep - iconMarginVertical;
+    }
+
+    /**
+     * Stacks every step in {@code metrics} into {@code layout}. The layout's arrays are reused when they're big enough
+     * so computing the same number of steps again doesn't allocate.
+     * <p>
+     * The height is the sum of each step's decorator height, used active views height and bottom margin, exactly like
+     * the stepper's measure pass, so it doesn't have to match the bottom of the last step.
+     */
+    public static void compute(StepMetrics metrics, StepLayout layout) {
+        int count = metrics.getStepCount();
+        layout.setStepCount(count);
+
+        int height = 0;
+        int top = 0;
+        for (int i = 0; i < count; i++) {
+            boolean isActive = metrics.active[i];
+            int bottomMargin = metrics.bottomMarginHeights[i];
+            height += metrics.decoratorHeights[i] + metrics.activeViewsUsedHeights[i] + bottomMargin;
+
+            int dyToTextBottom = metrics.yDistancesToTextBottom[i];
+            int dyToNextStep = calculateYDistanceToNextStep(isActive, dyToTextBottom, metrics.activeViewsHeights[i],
+                    bottomMargin);
+
+            layout.tops[i] = top;
+            layout.yDistancesToTextBottom[i] = dyToTextBottom;
+            layout.yDistancesToNextStep[i] = dyToNextStep;
+
+            top += dyToNextStep;
+        }
+        layout.height = height;
+    }
+}
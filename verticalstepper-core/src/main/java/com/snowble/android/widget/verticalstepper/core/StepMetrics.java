@@ -0,0 +1,88 @@
+package com.snowble.android.widget.verticalstepper.core;
+
+import java.util.Arrays;
+
+/**
+ * What the stepper's measure pass found for each step, stored in primitive arrays that grow as needed and are reused
+ * across calls to {@link #setStepCount(int)}.
+ */
+public final class StepMetrics {
+    private int size;
+    boolean[] active = new boolean[0];
+    int[] decoratorHeights = new int[0];
+    int[] yDistancesToTextBottom = new int[0];
+    int[] activeViewsHeights = new int[0];
+    int[] activeViewsUsedHeights = new int[0];
+    int[] bottomMarginHeights = new int[0];
+
+    public int getStepCount() {
+        return size;
+    }
+
+    /**
+     * Sets the number of steps. Steps that were already set keep their metrics and new steps start out empty.
+     */
+    public void setStepCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count cannot be negative.");
+        }
+        if (count > active.length) {
+            int capacity = Math.max(count, active.length * 2);
+            active = Arrays.copyOf(active, capacity);
+            decoratorHeights = Arrays.copyOf(decoratorHeights, capacity);
+            yDistancesToTextBottom = Arrays.copyOf(yDistancesToTextBottom, capacity);
+            activeViewsHeights = Arrays.copyOf(activeViewsHeights, capacity);
+            activeViewsUsedHeights = Arrays.copyOf(activeViewsUsedHeights, capacity);
+            bottomMarginHeights = Arrays.copyOf(bottomMarginHeights, capacity);
+        }
+        for (int i = count; i < size; i++) {
+            active[i] = false;
+            decoratorHeights[i] = 0;
+            yDistancesToTextBottom[i] = 0;
+            activeViewsHeights[i] = 0;
+            activeViewsUsedHeights[i] = 0;
+            bottomMarginHeights[i] = 0;
+        }
+        size = count;
+    }
+
+    public void setActive(int index, boolean isActive) {
+        active[checkIndex(index)] = isActive;
+    }
+
+    /**
+     * @param decoratorHeight the height of the icon or the title and subtitle, whichever is taller.
+     * @param yDistanceToTextBottom the distance from the top of the step to the bottom of its text. See
+     *                              {@link StepLayoutEngine#calculateYDistanceToTextBottom}.
+     */
+    public void setDecorator(int index, int decoratorHeight, int yDistanceToTextBottom) {
+        checkIndex(index);
+        decoratorHeights[index] = decoratorHeight;
+        yDistancesToTextBottom[index] = yDistanceToTextBottom;
+    }
+
+    /**
+     * @param height the height of the inner view and continue button together, which the next step is placed below.
+     * @param usedHeight the height they take up including their vertical margins, which the stepper is measured
+     *                   with. The measure pass leaves it at 0 for inactive steps.
+     */
+    public void setActiveViewsHeight(int index, int height, int usedHeight) {
+        checkIndex(index);
+        activeViewsHeights[index] = height;
+        activeViewsUsedHeights[index] = usedHeight;
+    }
+
+    /**
+     * @param bottomMarginHeight the margin between the step and the next one, usually 0 for the last step.
+     */
+    public void setBottomMarginHeight(int index, int bottomMarginHeight) {
+        bottomMarginHeights[checkIndex(index)] = bottomMarginHeight;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size + ".");
+        }
+        return index;
+    }
+}
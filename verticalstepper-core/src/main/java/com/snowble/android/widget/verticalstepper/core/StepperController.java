@@ -0,0 +1,295 @@
+package com.snowble.android.widget.verticalstepper.core;
+
+import java.util.BitSet;
+
+/**
+ * Owns the active, complete and error state of a stepper's steps and the transitions between them, without any
+ * views. A widget renders it by listening for changes; tests and simulations can drive it directly.
+ * <p>
+ * The transitions are the same as the stepper's: tapping a step's header collapses every other step and toggles it,
+ * and continuing validates the step, then collapses it and expands the next one if it's valid. Revalidating a step
+ * only updates its error and completion.
+ */
+public final class StepperController {
+    /**
+     * The step is valid and complete.
+     */
+    public static final int VALID_COMPLETE = 1;
+    /**
+     * The step is valid but incomplete, e.g. an optional step that was skipped.
+     */
+    public static final int VALID_INCOMPLETE = 2;
+    /**
+     * The step has an error.
+     */
+    public static final int INVALID = 3;
+
+    public static final int CHANGED_ACTIVE = 1;
+    public static final int CHANGED_COMPLETE = 1 << 1;
+    public static final int CHANGED_ERROR = 1 << 2;
+
+    public interface Validator {
+        /**
+         * @param index the position of the step being completed.
+         * @param isOptional whether or not the step is optional.
+         * @return one of {@link #VALID_COMPLETE}, {@link #VALID_INCOMPLETE} or {@link #INVALID}.
+         */
+        int validate(int index, boolean isOptional);
+    }
+
+    public interface Listener {
+        /**
+         * @param index the position of the step that changed.
+         * @param changes a combination of {@link #CHANGED_ACTIVE}, {@link #CHANGED_COMPLETE} and
+         *                {@link #CHANGED_ERROR}. An invalid result always counts as an error change since its
+         *                message may differ from the step's previous error.
+         */
+        void onStepChanged(int index, int changes);
+
+        /**
+         * @param index the position of the step that was validated.
+         * @param result the validator's result.
+         * @param durationNanos how long the validator took.
+         */
+        void onStepValidated(int index, int result, long durationNanos);
+    }
+
+    private static final Validator ALWAYS_VALID = new Validator() {
+        @Override
+        public int validate(int index, boolean isOptional) {
+            return VALID_COMPLETE;
+        }
+    };
+
+    private int stepCount;
+    private final BitSet active;
+    private final BitSet complete;
+    private final BitSet error;
+    private final BitSet optional;
+    private Validator validator = ALWAYS_VALID;
+    private Listener listener;
+
+    public StepperController(int stepCount) {
+        if (stepCount < 0) {
+            throw new IllegalArgumentException("stepCount cannot be negative.");
+        }
+        this.stepCount = stepCount;
+        active = new BitSet(stepCount);
+        complete = new BitSet(stepCount);
+        error = new BitSet(stepCount);
+        optional = new BitSet(stepCount);
+    }
+
+    /**
+     * @param validator the validator or null to treat every step as valid and complete.
+     */
+    public void setValidator(Validator validator) {
+        this.validator = validator != null ? validator : ALWAYS_VALID;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Sets the number of steps. Steps that were already set keep their state and new steps start out empty.
+     */
+    public void setStepCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count cannot be negative.");
+        }
+        for (int i = count; i < stepCount; i++) {
+            clear(i);
+        }
+        stepCount = count;
+    }
+
+    /**
+     * Adds an empty step at {@code index}, shifting the steps after it.
+     */
+    public void insertStep(int index) {
+        if (index < 0 || index > stepCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + stepCount + ".");
+        }
+        for (int i = stepCount; i > index; i--) {
+            copy(i - 1, i);
+        }
+        clear(index);
+        stepCount++;
+    }
+
+    /**
+     * Removes the step at {@code index}, shifting the steps after it.
+     */
+    public void removeStep(int index) {
+        checkIndex(index);
+        for (int i = index; i < stepCount - 1; i++) {
+            copy(i + 1, i);
+        }
+        stepCount--;
+        clear(stepCount);
+    }
+
+    public boolean isActive(int index) {
+        return active.get(checkIndex(index));
+    }
+
+    public boolean isComplete(int index) {
+        return complete.get(checkIndex(index));
+    }
+
+    public boolean hasError(int index) {
+        return error.get(checkIndex(index));
+    }
+
+    public boolean isOptional(int index) {
+        return optional.get(checkIndex(index));
+    }
+
+    /**
+     * @return the index of the first expanded step or -1 if all steps are collapsed.
+     */
+    public int getActiveStepIndex() {
+        return active.nextSetBit(0);
+    }
+
+    public void setOptional(int index, boolean isOptional) {
+        optional.set(checkIndex(index), isOptional);
+    }
+
+    /**
+     * Sets a step's state without notifying the listener, e.g. when restoring saved state.
+     */
+    public void restoreState(int index, boolean isActive, boolean isComplete, boolean hasError) {
+        checkIndex(index);
+        active.set(index, isActive);
+        complete.set(index, isComplete);
+        error.set(index, hasError);
+    }
+
+    /**
+     * What happens when the user taps a step's header: every other step is collapsed and the step is toggled.
+     */
+    public void toggleStep(int index) {
+        checkIndex(index);
+        collapseOtherSteps(index);
+        setActive(index, !active.get(index));
+    }
+
+    /**
+     * Expands the step at {@code index} and collapses all other steps.
+     */
+    public void goToStep(int index) {
+        checkIndex(index);
+        collapseOtherSteps(index);
+        setActive(index, true);
+    }
+
+    /**
+     * What happens when the user taps a step's continue button: the step is validated and, unless it's invalid,
+     * collapsed and followed by the next step. An invalid step shows its error and is no longer complete.
+     *
+     * @return the validator's result.
+     */
+    public int attemptStepCompletion(int index) {
+        checkIndex(index);
+        int result = runValidator(index);
+        if (result == INVALID) {
+            update(index, active.get(index), false, true, true);
+        } else {
+            update(index, false, complete.get(index) || result == VALID_COMPLETE, false);
+            int nextIndex = index + 1;
+            if (nextIndex < stepCount) {
+                setActive(nextIndex, !active.get(nextIndex));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Validates a step again after something it depends on changed. It keeps its active state; a valid but incomplete
+     * result, like an invalid one, clears its earlier completion since it no longer holds.
+     *
+     * @return the validator's result.
+     */
+    public int revalidateStep(int index) {
+        checkIndex(index);
+        int result = runValidator(index);
+        if (result == INVALID) {
+            update(index, active.get(index), false, true, true);
+        } else {
+            update(index, active.get(index), result == VALID_COMPLETE, false);
+        }
+        return result;
+    }
+
+    private int runValidator(int index) {
+        long start = System.nanoTime();
+        int result = validator.validate(index, optional.get(index));
+        long duration = System.nanoTime() - start;
+        if (listener != null) {
+            listener.onStepValidated(index, result, duration);
+        }
+        return result;
+    }
+
+    private void collapseOtherSteps(int indexToExclude) {
+        for (int i = active.nextSetBit(0); i >= 0; i = active.nextSetBit(i + 1)) {
+            if (i != indexToExclude) {
+                setActive(i, false);
+            }
+        }
+    }
+
+    private void setActive(int index, boolean isActive) {
+        update(index, isActive, complete.get(index), error.get(index));
+    }
+
+    private void update(int index, boolean isActive, boolean isComplete, boolean hasError) {
+        update(index, isActive, isComplete, hasError, false);
+    }
+
+    private void update(int index, boolean isActive, boolean isComplete, boolean hasError, boolean errorChanged) {
+        int changes = errorChanged ? CHANGED_ERROR : 0;
+        if (active.get(index) != isActive) {
+            active.set(index, isActive);
+            changes |= CHANGED_ACTIVE;
+        }
+        if (complete.get(index) != isComplete) {
+            complete.set(index, isComplete);
+            changes |= CHANGED_COMPLETE;
+        }
+        if (error.get(index) != hasError) {
+            error.set(index, hasError);
+            changes |= CHANGED_ERROR;
+        }
+        if (changes != 0 && listener != null) {
+            listener.onStepChanged(index, changes);
+        }
+    }
+
+    private void copy(int from, int to) {
+        active.set(to, active.get(from));
+        complete.set(to, complete.get(from));
+        error.set(to, error.get(from));
+        optional.set(to, optional.get(from));
+    }
+
+    private void clear(int index) {
+        active.clear(index);
+        complete.clear(index);
+        error.clear(index);
+        optional.clear(index);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= stepCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + stepCount + ".");
+        }
+        return index;
+    }
+}
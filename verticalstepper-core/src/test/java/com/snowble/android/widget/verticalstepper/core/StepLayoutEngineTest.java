@@ -0,0 +1,160 @@
+package com.snowble.android.widget.verticalstepper.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Java6Assertions.*;
+
+public class StepLayoutEngineTest {
+    private static final int ICON_DIMENSION = 24;
+    private static final int ICON_MARGIN_RIGHT = 12;
+    private static final int ICON_MARGIN_VERTICAL = 8;
+    private static final int TITLE_MARGIN_BOTTOM = 16;
+    private static final int ACTIVE_BOTTOM_MARGIN = 48;
+    private static final int INACTIVE_BOTTOM_MARGIN = 40;
+
+    private StepMetrics metrics;
+    private StepLayout layout;
+
+    @Before
+    public void givenMetricsAndALayout() {
+        metrics = new StepMetrics();
+        layout = new StepLayout();
+    }
+
+    @Test
+    public void calculateDecoratorWidth_ShouldAddIconWidthToTruncatedWidestText() {
+        int iconWidth = StepLayoutEngine.calculateDecoratorIconWidth(ICON_DIMENSION, ICON_MARGIN_RIGHT);
+        float textWidth = StepLayoutEngine.calculateDecoratorTextWidth(50f, 300.5f);
+
+        assertThat(StepLayoutEngine.calculateDecoratorWidth(iconWidth, textWidth))
+                .isEqualTo(ICON_DIMENSION + ICON_MARGIN_RIGHT + 300);
+    }
+
+    @Test
+    public void calculateDecoratorHeight_ShortText_ShouldReturnIconDimension() {
+        assertThat(StepLayoutEngine.calculateDecoratorHeight(ICON_DIMENSION, 10.5f, 5.2f)).isEqualTo(ICON_DIMENSION);
+    }
+
+    @Test
+    public void calculateDecoratorHeight_TallText_ShouldReturnTruncatedTextHeight() {
+        assertThat(StepLayoutEngine.calculateDecoratorHeight(ICON_DIMENSION, 20.5f, 10.7f)).isEqualTo(31);
+    }
+
+    @Test
+    public void calculateYDistanceToTextBottom_Inactive_ShouldAddSubtitleBottom() {
+        assertThat(StepLayoutEngine.calculateYDistanceToTextBottom(false, 20.5f, 10.7f, TITLE_MARGIN_BOTTOM))
+                .isEqualTo(30);
+    }
+
+    @Test
+    public void calculateYDistanceToTextBottom_Active_ShouldAddTitleMargin() {
+        assertThat(StepLayoutEngine.calculateYDistanceToTextBottom(true, 20.5f, 10.7f, TITLE_MARGIN_BOTTOM))
+                .isEqualTo(20 + TITLE_MARGIN_BOTTOM);
+    }
+
+    @Test
+    public void calculateYDistanceToNextStep_Inactive_ShouldIgnoreActiveViews() {
+        assertThat(StepLayoutEngine.calculateYDistanceToNextStep(false, 30, 100, INACTIVE_BOTTOM_MARGIN))
+                .isEqualTo(30 + INACTIVE_BOTTOM_MARGIN);
+    }
+
+    @Test
+    public void calculateYDistanceToNextStep_Active_ShouldAddActiveViews() {
+        assertThat(StepLayoutEngine.calculateYDistanceToNextStep(true, 30, 100, ACTIVE_BOTTOM_MARGIN))
+                .isEqualTo(30 + 100 + ACTIVE_BOTTOM_MARGIN);
+    }
+
+    @Test
+    public void calculateConnector_ShouldBeInsetByVerticalMargin() {
+        assertThat(StepLayoutEngine.calculateConnectorStartY(ICON_DIMENSION, ICON_MARGIN_VERTICAL))
+                .isEqualTo(ICON_DIMENSION + ICON_MARGIN_VERTICAL);
+        assertThat(StepLayoutEngine.calculateConnectorStopY(100, ICON_MARGIN_VERTICAL))
+                .isEqualTo(100 - ICON_MARGIN_VERTICAL);
+    }
+
+    @Test
+    public void compute_NoSteps_ShouldBeEmpty() {
+        StepLayoutEngine.compute(metrics, layout);
+
+        assertThat(layout.getStepCount()).isEqualTo(0);
+        assertThat(layout.getHeight()).isEqualTo(0);
+    }
+
+    @Test
+    public void compute_ThreeSteps_ShouldStackStepsAndSumHeights() {
+        metrics.setStepCount(3);
+        metrics.setDecorator(0, 30, 30);
+        metrics.setBottomMarginHeight(0, INACTIVE_BOTTOM_MARGIN);
+        metrics.setActive(1, true);
+        metrics.setDecorator(1, 30, 20 + TITLE_MARGIN_BOTTOM);
+        metrics.setActiveViewsHeight(1, 100, 116);
+        metrics.setBottomMarginHeight(1, ACTIVE_BOTTOM_MARGIN);
+        metrics.setDecorator(2, 30, 30);
+
+        StepLayoutEngine.compute(metrics, layout);
+
+        assertThat(layout.getHeight()).isEqualTo(30 + INACTIVE_BOTTOM_MARGIN + 30 + 116 + ACTIVE_BOTTOM_MARGIN + 30);
+
+        assertThat(layout.getTop(0)).isEqualTo(0);
+        assertThat(layout.getYDistanceToNextStep(0)).isEqualTo(30 + INACTIVE_BOTTOM_MARGIN);
+        assertThat(layout.getTop(1)).isEqualTo(30 + INACTIVE_BOTTOM_MARGIN);
+        assertThat(layout.getYDistanceToTextBottom(1)).isEqualTo(20 + TITLE_MARGIN_BOTTOM);
+        assertThat(layout.getYDistanceToNextStep(1)).isEqualTo(20 + TITLE_MARGIN_BOTTOM + 100 + ACTIVE_BOTTOM_MARGIN);
+        assertThat(layout.getTop(2)).isEqualTo(layout.getTop(1) + layout.getYDistanceToNextStep(1));
+    }
+
+    @Test
+    public void compute_InactiveStepWithActiveViews_ShouldOnlyPlaceNextStepAboveThem() {
+        metrics.setStepCount(2);
+        metrics.setDecorator(0, 30, 30);
+        metrics.setActiveViewsHeight(0, 100, 0);
+        metrics.setBottomMarginHeight(0, INACTIVE_BOTTOM_MARGIN);
+
+        StepLayoutEngine.compute(metrics, layout);
+
+        assertThat(layout.getTop(1)).isEqualTo(30 + INACTIVE_BOTTOM_MARGIN);
+    }
+
+    @Test
+    public void compute_ShouldSumHeightsLikeTheMeasurePass() {
+        metrics.setStepCount(2);
+        metrics.setDecorator(0, 100, 40);
+        metrics.setActiveViewsHeight(0, 0, 400);
+        metrics.setBottomMarginHeight(0, 48);
+        metrics.setDecorator(1, 100, 40);
+        metrics.setActiveViewsHeight(1, 0, 400);
+        metrics.setBottomMarginHeight(1, 48);
+
+        StepLayoutEngine.compute(metrics, layout);
+
+        assertThat(layout.getHeight()).isEqualTo(2 * (100 + 400 + 48));
+    }
+
+    @Test
+    public void setStepCount_Shrink_ShouldResetRemovedSteps() {
+        metrics.setStepCount(2);
+        metrics.setActive(1, true);
+        metrics.setActiveViewsHeight(1, 100, 100);
+
+        metrics.setStepCount(1);
+        metrics.setStepCount(2);
+        StepLayoutEngine.compute(metrics, layout);
+
+        assertThat(layout.getYDistanceToNextStep(1)).isEqualTo(0);
+        assertThat(layout.getHeight()).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setStepCount_Negative_ShouldThrow() {
+        metrics.setStepCount(-1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getTop_OutOfBounds_ShouldThrow() {
+        metrics.setStepCount(1);
+        StepLayoutEngine.compute(metrics, layout);
+
+        layout.getTop(1);
+    }
+}
@@ -0,0 +1,252 @@
+package com.snowble.android.widget.verticalstepper.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.*;
+
+public class StepperControllerTest {
+    private static final int STEP_COUNT = 3;
+
+    private StepperController controller;
+    private RecordingListener listener;
+
+    private static class RecordingListener implements StepperController.Listener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onStepChanged(int index, int changes) {
+            events.add(index + ":" + changes);
+        }
+
+        @Override
+        public void onStepValidated(int index, int result, long durationNanos) {
+            events.add(index + " validated " + result);
+        }
+    }
+
+    @Before
+    public void givenAControllerWithThreeSteps() {
+        controller = new StepperController(STEP_COUNT);
+        listener = new RecordingListener();
+        controller.setListener(listener);
+    }
+
+    @Test
+    public void toggleStep_Inactive_ShouldExpandOnlyIt() {
+        controller.toggleStep(1);
+
+        assertThat(controller.isActive(1)).isTrue();
+        assertThat(controller.getActiveStepIndex()).isEqualTo(1);
+        assertThat(listener.events).containsExactly("1:" + StepperController.CHANGED_ACTIVE);
+    }
+
+    @Test
+    public void toggleStep_OtherActive_ShouldCollapseOther() {
+        controller.toggleStep(0);
+        listener.events.clear();
+
+        controller.toggleStep(2);
+
+        assertThat(controller.isActive(0)).isFalse();
+        assertThat(controller.isActive(2)).isTrue();
+        assertThat(listener.events).containsExactly("0:" + StepperController.CHANGED_ACTIVE,
+                "2:" + StepperController.CHANGED_ACTIVE);
+    }
+
+    @Test
+    public void toggleStep_Active_ShouldCollapseIt() {
+        controller.toggleStep(0);
+
+        controller.toggleStep(0);
+
+        assertThat(controller.getActiveStepIndex()).isEqualTo(-1);
+    }
+
+    @Test
+    public void goToStep_Active_ShouldKeepItExpanded() {
+        controller.goToStep(1);
+        listener.events.clear();
+
+        controller.goToStep(1);
+
+        assertThat(controller.isActive(1)).isTrue();
+        assertThat(listener.events).isEmpty();
+    }
+
+    @Test
+    public void attemptStepCompletion_Valid_ShouldCompleteAndMoveToNextStep() {
+        controller.goToStep(0);
+        listener.events.clear();
+
+        int result = controller.attemptStepCompletion(0);
+
+        assertThat(result).isEqualTo(StepperController.VALID_COMPLETE);
+        assertThat(controller.isComplete(0)).isTrue();
+        assertThat(controller.isActive(0)).isFalse();
+        assertThat(controller.isActive(1)).isTrue();
+        assertThat(listener.events).containsExactly("0 validated " + StepperController.VALID_COMPLETE,
+                "0:" + (StepperController.CHANGED_ACTIVE | StepperController.CHANGED_COMPLETE),
+                "1:" + StepperController.CHANGED_ACTIVE);
+    }
+
+    @Test
+    public void attemptStepCompletion_Invalid_ShouldShowErrorAndStay() {
+        controller.setValidator(new StepperController.Validator() {
+            @Override
+            public int validate(int index, boolean isOptional) {
+                return StepperController.INVALID;
+            }
+        });
+        controller.goToStep(0);
+
+        controller.attemptStepCompletion(0);
+
+        assertThat(controller.hasError(0)).isTrue();
+        assertThat(controller.isActive(0)).isTrue();
+        assertThat(controller.isActive(1)).isFalse();
+    }
+
+    @Test
+    public void attemptStepCompletion_InvalidAfterComplete_ShouldClearCompletion() {
+        controller.setValidator(new StepperController.Validator() {
+            @Override
+            public int validate(int index, boolean isOptional) {
+                return StepperController.INVALID;
+            }
+        });
+        controller.restoreState(0, true, true, false);
+
+        controller.attemptStepCompletion(0);
+
+        assertThat(controller.hasError(0)).isTrue();
+        assertThat(controller.isComplete(0)).isFalse();
+        assertThat(listener.events).containsExactly("0 validated " + StepperController.INVALID,
+                "0:" + (StepperController.CHANGED_COMPLETE | StepperController.CHANGED_ERROR));
+    }
+
+    @Test
+    public void attemptStepCompletion_ValidIncompleteAfterError_ShouldClearErrorWithoutCompleting() {
+        controller.setOptional(0, true);
+        controller.setValidator(new StepperController.Validator() {
+            @Override
+            public int validate(int index, boolean isOptional) {
+                return isOptional ? StepperController.VALID_INCOMPLETE : StepperController.INVALID;
+            }
+        });
+        controller.restoreState(0, true, false, true);
+
+        controller.attemptStepCompletion(0);
+
+        assertThat(controller.hasError(0)).isFalse();
+        assertThat(controller.isComplete(0)).isFalse();
+        assertThat(controller.isActive(1)).isTrue();
+    }
+
+    @Test
+    public void attemptStepCompletion_LastStep_ShouldOnlyCollapseIt() {
+        controller.goToStep(STEP_COUNT - 1);
+
+        controller.attemptStepCompletion(STEP_COUNT - 1);
+
+        assertThat(controller.getActiveStepIndex()).isEqualTo(-1);
+        assertThat(controller.isComplete(STEP_COUNT - 1)).isTrue();
+    }
+
+    @Test
+    public void attemptStepCompletion_InvalidTwice_ShouldReportErrorChangeBothTimes() {
+        controller.setValidator(new StepperController.Validator() {
+            @Override
+            public int validate(int index, boolean isOptional) {
+                return StepperController.INVALID;
+            }
+        });
+
+        controller.attemptStepCompletion(0);
+        controller.attemptStepCompletion(0);
+
+        assertThat(listener.events).containsExactly("0 validated " + StepperController.INVALID,
+                "0:" + StepperController.CHANGED_ERROR, "0 validated " + StepperController.INVALID,
+                "0:" + StepperController.CHANGED_ERROR);
+    }
+
+    @Test
+    public void revalidateStep_ValidIncomplete_ShouldClearCompletionButKeepActiveState() {
+        controller.setValidator(new StepperController.Validator() {
+            @Override
+            public int validate(int index, boolean isOptional) {
+                return StepperController.VALID_INCOMPLETE;
+            }
+        });
+        controller.restoreState(1, true, true, false);
+
+        int result = controller.revalidateStep(1);
+
+        assertThat(result).isEqualTo(StepperController.VALID_INCOMPLETE);
+        assertThat(controller.isComplete(1)).isFalse();
+        assertThat(controller.isActive(1)).isTrue();
+        assertThat(listener.events).containsExactly("1 validated " + StepperController.VALID_INCOMPLETE,
+                "1:" + StepperController.CHANGED_COMPLETE);
+    }
+
+    @Test
+    public void revalidateStep_Invalid_ShouldShowErrorAndClearCompletionWithoutMoving() {
+        controller.setValidator(new StepperController.Validator() {
+            @Override
+            public int validate(int index, boolean isOptional) {
+                return StepperController.INVALID;
+            }
+        });
+        controller.restoreState(0, false, true, false);
+
+        controller.revalidateStep(0);
+
+        assertThat(controller.hasError(0)).isTrue();
+        assertThat(controller.isComplete(0)).isFalse();
+        assertThat(controller.getActiveStepIndex()).isEqualTo(-1);
+    }
+
+    @Test
+    public void insertStep_ShouldShiftLaterSteps() {
+        controller.restoreState(1, true, true, false);
+
+        controller.insertStep(1);
+
+        assertThat(controller.getStepCount()).isEqualTo(STEP_COUNT + 1);
+        assertThat(controller.isActive(1)).isFalse();
+        assertThat(controller.isActive(2)).isTrue();
+        assertThat(controller.isComplete(2)).isTrue();
+    }
+
+    @Test
+    public void removeStep_ShouldShiftLaterStepsAndClearTheLast() {
+        controller.restoreState(2, true, false, true);
+
+        controller.removeStep(0);
+
+        assertThat(controller.getStepCount()).isEqualTo(STEP_COUNT - 1);
+        assertThat(controller.isActive(1)).isTrue();
+        assertThat(controller.hasError(1)).isTrue();
+
+        controller.setStepCount(STEP_COUNT);
+        assertThat(controller.isActive(2)).isFalse();
+        assertThat(controller.hasError(2)).isFalse();
+    }
+
+    @Test
+    public void restoreState_ShouldNotNotifyListener() {
+        controller.restoreState(1, true, true, false);
+
+        assertThat(controller.isActive(1)).isTrue();
+        assertThat(controller.isComplete(1)).isTrue();
+        assertThat(listener.events).isEmpty();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void toggleStep_OutOfBounds_ShouldThrow() {
+        controller.toggleStep(STEP_COUNT);
+    }
+}
@@ -0,0 +1,46 @@
+package com.snowble.android.widget.verticalstepper;
+
+import java.util.Arrays;
+
+/**
+ * The view ids of the steps marked for revalidation, in the order they were marked, so that revalidating doesn't
+ * scan every step.
+ */
+class MarkedStepIds {
+    private int[] ids = new int[8];
+    private int size;
+
+    /**
+     * Adds {@code stepViewId} unless it's already marked.
+     */
+    void add(int stepViewId) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == stepViewId) {
+                return;
+            }
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = stepViewId;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Keeps the first {@code count} ids after they've been compacted with {@link #set(int, int)}.
+     */
+    void truncate(int count) {
+        size = count;
+    }
+
+    void set(int index, int stepViewId) {
+        ids[index] = stepViewId;
+    }
+}
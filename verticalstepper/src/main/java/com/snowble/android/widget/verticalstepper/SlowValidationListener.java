@@ -0,0 +1,14 @@
+package com.snowble.android.widget.verticalstepper;
+
+public interface SlowValidationListener {
+    /**
+     * Called on the main thread after validating a step took longer than the stepper's validation budget.
+     *
+     * @param stepIndex the position of the step in the stepper.
+     * @param stepViewId the id of the step's view.
+     * @param durationNanos how long the validation took, in nanoseconds.
+     *
+     * @see VerticalStepper#setValidationTimeBudget(long, java.util.concurrent.TimeUnit)
+     */
+    void onSlowValidation(int stepIndex, int stepViewId, long durationNanos);
+}
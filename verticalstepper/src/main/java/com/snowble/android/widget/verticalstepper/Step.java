@@ -9,17 +9,19 @@ import android.graphics.PointF;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.Typeface;
-import android.os.Parcel;
-import android.os.Parcelable;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.StringRes;
 import android.support.annotation.VisibleForTesting;
 import android.support.v4.content.res.ResourcesCompat;
 import android.support.v7.widget.AppCompatButton;
 import android.text.TextPaint;
 import android.text.TextUtils;
+import android.util.SparseArray;
 import android.view.View;
 
+import com.snowble.android.widget.verticalstepper.core.StepLayoutEngine;
+
 class Step {
     @NonNull
     private final VerticalStepper.InternalTouchView touchView;
@@ -34,9 +36,19 @@ class Step {
     private String summary;
     @Nullable
     private String error;
+    @StringRes
+    private int errorRes;
     private boolean active;
     private boolean complete;
     private boolean isOptional;
+    private boolean needsRevalidation;
+    private boolean validated;
+    private int index;
+    @Nullable
+    private String key;
+
+    @Nullable
+    private StepRules.Program rulesProgram;
 
     @NonNull
     private final Common common;
@@ -53,6 +65,24 @@ class Step {
     private float subtitleBaselineRelativeToTitleBottom;
     private float subtitleBottomRelativeToTitleBottom;
 
+    @Nullable
+    private TextPaint titleWidthPaint;
+    @Nullable
+    private String titleWidthText;
+    @Nullable
+    private TextPaint subtitleWidthPaint;
+    @Nullable
+    private String subtitleWidthText;
+    @Nullable
+    private TextPaint titleHeightPaint;
+    @Nullable
+    private String titleHeightText;
+    private int titleHeightToCenterIn;
+    @Nullable
+    private TextPaint subtitleHeightPaint;
+    private int textCacheHits;
+    private int textCacheMisses;
+
     Step(@NonNull View innerView, @NonNull VerticalStepper.InternalTouchView touchView,
          @NonNull AppCompatButton continueButton, @NonNull Common common, @Nullable State initialState) {
         this.innerView = innerView;
@@ -79,13 +109,52 @@ class Step {
 
     private void setState(@Nullable State state) {
         if (state != null) {
-            active = state.active;
-            complete = state.complete;
-            error = state.error;
-            summary = state.summary;
+            restoreState(state);
         }
     }
 
+    void bind(@NonNull String title, @Nullable String summary, boolean active, boolean complete,
+              @Nullable String error) {
+        this.title = title;
+        validateTitle();
+        this.summary = summary;
+        this.active = active;
+        this.complete = complete;
+        this.error = error;
+        errorRes = 0;
+    }
+
+    void restoreState(@NonNull State state) {
+        errorRes = 0;
+        active = state.active;
+        complete = state.complete;
+        error = state.error;
+        summary = state.summary;
+    }
+
+    /**
+     * @return the position of the step in the stepper.
+     */
+    int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return the key of the {@link StepModel} the step was created from or null if it wasn't created from one.
+     */
+    @Nullable
+    String getKey() {
+        return key;
+    }
+
+    void setKey(@Nullable String key) {
+        this.key = key;
+    }
+
     State generateState() {
         return new State(this);
     }
@@ -118,27 +187,88 @@ class Step {
     }
 
     void markComplete() {
-        error = "";
+        clearError();
         complete = true;
     }
 
+    void markIncomplete() {
+        complete = false;
+    }
+
+    void markValidated() {
+        validated = true;
+    }
+
+    /**
+     * @return whether the step has been validated at least once, either successfully or not. Restored steps that are
+     * complete or have an error count as validated.
+     */
+    boolean isValidated() {
+        return validated || complete || hasError();
+    }
+
+    boolean needsRevalidation() {
+        return needsRevalidation;
+    }
+
+    void setNeedsRevalidation(boolean needsRevalidation) {
+        this.needsRevalidation = needsRevalidation;
+    }
+
     boolean hasError() {
-        return !TextUtils.isEmpty(error);
+        return errorRes != 0 || !TextUtils.isEmpty(error);
     }
 
     void setError(@Nullable String error) {
         complete = false;
         this.error = error;
+        errorRes = 0;
+    }
+
+    /**
+     * Sets an error that's only resolved when it's needed for measuring or drawing.
+     */
+    void setError(@StringRes int errorRes) {
+        complete = false;
+        this.error = null;
+        this.errorRes = errorRes;
     }
 
     void clearError() {
         error = "";
+        errorRes = 0;
+    }
+
+    @Nullable
+    private String getError() {
+        return errorRes != 0 ? common.getString(errorRes) : error;
     }
 
     boolean isOptional() {
         return isOptional;
     }
 
+    void setOptional(boolean isOptional) {
+        this.isOptional = isOptional;
+    }
+
+    /**
+     * Checks the {@link StepRules} of the step, compiling them the first time they're used.
+     *
+     * @return the result if the rules decided the outcome or null if there are no rules or they all passed.
+     */
+    @Nullable
+    ValidationResult validateRules() {
+        StepRules rules = ((VerticalStepper.LayoutParams) innerView.getLayoutParams()).getRules();
+        if (rules == null) {
+            return null;
+        }
+        if (rulesProgram == null || !rulesProgram.isCompiledFrom(rules)) {
+            rulesProgram = rules.compile(innerView);
+        }
+        return rulesProgram.evaluate(isOptional);
+    }
+
     int getDecoratorHeight() {
         return decoratorHeight;
     }
@@ -160,18 +290,28 @@ class Step {
         return title;
     }
 
+    void setTitle(@NonNull String title) {
+        this.title = title;
+        validateTitle();
+    }
+
     float getTitleWidth() {
         return titleWidth;
     }
 
-    void setSummary(@NonNull String summary) {
+    @Nullable
+    String getSummary() {
+        return summary;
+    }
+
+    void setSummary(@Nullable String summary) {
         this.summary = summary;
     }
 
     @Nullable
     String getSubtitle() {
         if (hasError()) {
-            return error;
+            return getError();
         } else if (!active && complete) {
             return summary;
         } else if (isOptional) {
@@ -201,41 +341,87 @@ class Step {
         return subtitleBottomRelativeToTitleBottom;
     }
 
+    // The text measurements below are skipped when the text and paint are the same as the last time they were
+    // measured. The paints are shared and never change so the text and paint identify the result.
+
     void measureTitleHorizontalDimensions() {
+        TextPaint paint = getTitleTextPaint();
+        if (paint == titleWidthPaint && TextUtils.equals(title, titleWidthText)) {
+            textCacheHits++;
+            return;
+        }
+        textCacheMisses++;
         float width = 0f;
         if (!TextUtils.isEmpty(title)) {
-            width = getTitleTextPaint().measureText(title);
+            width = paint.measureText(title);
         }
         titleWidth = width;
+        titleWidthPaint = paint;
+        titleWidthText = title;
     }
 
     void measureSubtitleHorizontalDimensions() {
-        float width = 0f;
+        TextPaint paint = getSubtitleTextPaint();
         String subtitle = getSubtitle();
+        if (paint == subtitleWidthPaint && TextUtils.equals(subtitle, subtitleWidthText)) {
+            textCacheHits++;
+            return;
+        }
+        textCacheMisses++;
+        float width = 0f;
         if (!TextUtils.isEmpty(subtitle)) {
-            width = getSubtitleTextPaint().measureText(subtitle);
+            width = paint.measureText(subtitle);
         }
         subtitleWidth = width;
+        subtitleWidthPaint = paint;
+        subtitleWidthText = subtitle;
     }
 
     void measureTitleVerticalDimensions(int heightToCenterIn) {
-        measureTitleBaseline(heightToCenterIn);
-        titleBottomRelativeToStepTop = titleBaselineRelativeToStepTop + getTitleTextPaint().getFontMetrics().bottom;
-    }
-
-    private void measureTitleBaseline(int heightToCenterIn) {
+        TextPaint paint = getTitleTextPaint();
+        if (paint == titleHeightPaint && heightToCenterIn == titleHeightToCenterIn
+                && TextUtils.equals(title, titleHeightText)) {
+            textCacheHits++;
+            return;
+        }
+        textCacheMisses++;
+        measureTitleBaseline(paint, heightToCenterIn);
+        Paint.FontMetrics fontMetrics = getTempFontMetrics();
+        paint.getFontMetrics(fontMetrics);
+        titleBottomRelativeToStepTop = titleBaselineRelativeToStepTop + fontMetrics.bottom;
+        titleHeightPaint = paint;
+        titleHeightToCenterIn = heightToCenterIn;
+        titleHeightText = title;
+    }
+
+    private void measureTitleBaseline(TextPaint paint, int heightToCenterIn) {
         titleBaselineRelativeToStepTop = ViewUtils.findTextCenterStartY(
-                title, heightToCenterIn, getTitleTextPaint(), getTempRectForTitleTextBounds());
+                title, heightToCenterIn, paint, getTempRectForTitleTextBounds());
     }
 
     void measureSubtitleVerticalDimensions() {
-        measureSubtitleBaseline();
-        subtitleBottomRelativeToTitleBottom =
-                subtitleBaselineRelativeToTitleBottom + getSubtitleTextPaint().getFontMetrics().bottom;
+        TextPaint paint = getSubtitleTextPaint();
+        if (paint == subtitleHeightPaint) {
+            textCacheHits++;
+            return;
+        }
+        textCacheMisses++;
+        Paint.FontMetrics fontMetrics = getTempFontMetrics();
+        paint.getFontMetrics(fontMetrics);
+        subtitleBaselineRelativeToTitleBottom = -fontMetrics.ascent;
+        subtitleBottomRelativeToTitleBottom = subtitleBaselineRelativeToTitleBottom + fontMetrics.bottom;
+        subtitleHeightPaint = paint;
+    }
+
+    /**
+     * @return how many text measurements were skipped because the text and paint hadn't changed.
+     */
+    int getTextCacheHits() {
+        return textCacheHits;
     }
 
-    private void measureSubtitleBaseline() {
-        subtitleBaselineRelativeToTitleBottom = -getSubtitleTextPaint().getFontMetrics().ascent;
+    int getTextCacheMisses() {
+        return textCacheMisses;
     }
 
     TextPaint getTitleTextPaint() {
@@ -289,11 +475,12 @@ class Step {
     }
 
     int calculateStepDecoratorWidth() {
-        return calculateStepDecoratorIconWidth() + (int) calculateStepDecoratorTextWidth();
+        return StepLayoutEngine.calculateDecoratorWidth(calculateStepDecoratorIconWidth(),
+                calculateStepDecoratorTextWidth());
     }
 
     int calculateStepDecoratorIconWidth() {
-        return getIconDimension() + getIconMarginRight();
+        return StepLayoutEngine.calculateDecoratorIconWidth(getIconDimension(), getIconMarginRight());
     }
 
     int getIconDimension() {
@@ -331,45 +518,36 @@ class Step {
     }
 
     int calculateConnectorStartY() {
-        return getIconDimension() + getIconMarginVertical();
+        return StepLayoutEngine.calculateConnectorStartY(getIconDimension(), getIconMarginVertical());
     }
 
     int calculateConnectorStopY(int yDistanceToNextStep) {
-        return yDistanceToNextStep - getIconMarginVertical();
+        return StepLayoutEngine.calculateConnectorStopY(yDistanceToNextStep, getIconMarginVertical());
     }
 
     float calculateStepDecoratorTextWidth() {
         measureTitleHorizontalDimensions();
         measureSubtitleHorizontalDimensions();
-        return Math.max(getTitleWidth(), getSubtitleWidth());
+        return StepLayoutEngine.calculateDecoratorTextWidth(getTitleWidth(), getSubtitleWidth());
     }
 
     void measureStepDecoratorHeight() {
         int iconDimension = getIconDimension();
         measureTitleVerticalDimensions(iconDimension);
         measureSubtitleVerticalDimensions();
-        int textTotalHeight = (int) (getTitleBottomRelativeToStepTop()
-                + getSubtitleBottomRelativeToTitleBottom());
-        decoratorHeight = Math.max(iconDimension, textTotalHeight);
+        decoratorHeight = StepLayoutEngine.calculateDecoratorHeight(iconDimension, getTitleBottomRelativeToStepTop(),
+                getSubtitleBottomRelativeToTitleBottom());
     }
 
     int calculateYDistanceToNextStep() {
-        int dyToNextStep = calculateYDistanceToTextBottom();
-        if (active) {
-            dyToNextStep += innerView.getHeight() + continueButton.getHeight();
-        }
-        dyToNextStep += getBottomMarginToNextStep();
-        return dyToNextStep;
+        int activeViewsHeight = active ? innerView.getHeight() + continueButton.getHeight() : 0;
+        return StepLayoutEngine.calculateYDistanceToNextStep(active, calculateYDistanceToTextBottom(),
+                activeViewsHeight, getBottomMarginToNextStep());
     }
 
     int calculateYDistanceToTextBottom() {
-        int dyToTextBottom = (int) getTitleBottomRelativeToStepTop();
-        if (!active) {
-            dyToTextBottom += getSubtitleBottomRelativeToTitleBottom();
-        } else {
-            dyToTextBottom += common.getTitleMarginBottomToInnerView();
-        }
-        return dyToTextBottom;
+        return StepLayoutEngine.calculateYDistanceToTextBottom(active, getTitleBottomRelativeToStepTop(),
+                getSubtitleBottomRelativeToTitleBottom(), common.getTitleMarginBottomToInnerView());
     }
 
     RectF getTempRectForIconBackground() {
@@ -392,23 +570,21 @@ class Step {
         return common.getTempRectForLayout();
     }
 
+    private Paint.FontMetrics getTempFontMetrics() {
+        return common.getTempFontMetrics();
+    }
+
     Bitmap getIconErrorBitmap() {
         return common.getIconErrorBitmap();
     }
 
-    static class State implements Parcelable {
-        private static final int FALSE = 0;
-        private static final int TRUE = 1;
-
-        public static final Parcelable.Creator<State> CREATOR = new Parcelable.Creator<State>() {
-            public State createFromParcel(Parcel in) {
-                return new State(in);
-            }
-
-            public State[] newArray(int size) {
-                return new State[size];
-            }
-        };
+    /**
+     * A snapshot of the parts of a step that survive a configuration change. {@link VerticalStepper.SavedState}
+     * takes care of parceling it.
+     */
+    static class State {
+        @VisibleForTesting
+        final int stepViewId;
         @VisibleForTesting
         final boolean active;
         @VisibleForTesting
@@ -419,40 +595,40 @@ class Step {
         final String summary;
 
         @VisibleForTesting
-        State(boolean active, boolean complete, String error, String summary) {
+        State(int stepViewId, boolean active, boolean complete, String error, String summary) {
+            this.stepViewId = stepViewId;
             this.active = active;
             this.complete = complete;
-            this.error = error;
+            this.error = normalizeError(error);
             this.summary = summary;
         }
 
         State(Step step) {
+            stepViewId = step.innerView.getId();
             active = step.active;
             complete = step.complete;
-            error = step.error;
+            error = normalizeError(step.getError());
             summary = step.summary;
         }
 
-        State(Parcel in) {
-            active = in.readInt() == TRUE;
-            complete = in.readInt() == TRUE;
-            error = (String) in.readValue(String.class.getClassLoader());
-            summary = (String) in.readValue(String.class.getClassLoader());
+        /**
+         * A cleared error is empty rather than null but both mean there's no error. Keeping them the same means
+         * cleared errors aren't saved.
+         */
+        @Nullable
+        private static String normalizeError(@Nullable String error) {
+            return TextUtils.isEmpty(error) ? null : error;
         }
 
-        @Override
-        public void writeToParcel(Parcel dest, int flags) {
-            dest.writeInt(active ? TRUE : FALSE);
-            dest.writeInt(complete ? TRUE : FALSE);
-            dest.writeValue(error);
-            dest.writeValue(summary);
+        boolean isSameAs(@Nullable State other) {
+            return other != null && stepViewId == other.stepViewId && active == other.active
+                    && complete == other.complete && TextUtils.equals(error, other.error)
+                    && TextUtils.equals(summary, other.summary);
         }
 
-        @Override
-        public int describeContents() {
-            return 0;
+        boolean hasDefaultText() {
+            return error == null && summary == null;
         }
-
     }
 
     static class Common {
@@ -491,11 +667,14 @@ class Step {
         private final int connectorWidth;
         private final Paint connectorPaint;
 
+        private final SparseArray<String> resolvedStrings;
+
         private final RectF tempRectForIconBackground;
         private final Rect tempRectForIconTextBounds;
         private final PointF tempPointForIconTextCenter;
         private final Rect tempRectForTitleTextBounds;
         private final Rect tempRectForLayout;
+        private final Paint.FontMetrics tempFontMetrics;
 
         Common(Context context, int iconActiveColor, int iconInactiveColor, int iconCompleteColor) {
             resources = context.getResources();
@@ -535,11 +714,14 @@ class Step {
             connectorPaint = createPaint(getColor(R.color.connector_color));
             connectorPaint.setStrokeWidth(connectorWidth);
 
+            resolvedStrings = new SparseArray<>();
+
             tempRectForIconBackground = new RectF(0, 0, iconDimension, iconDimension);
             tempRectForIconTextBounds = new Rect();
             tempPointForIconTextCenter = new PointF();
             tempRectForTitleTextBounds = new Rect();
             tempRectForLayout = new Rect();
+            tempFontMetrics = new Paint.FontMetrics();
         }
 
         private Paint createPaint(int color) {
@@ -562,6 +744,22 @@ class Step {
             return ResourcesCompat.getColor(resources, colorRes, theme);
         }
 
+        int getResolvedStringCount() {
+            return resolvedStrings.size();
+        }
+
+        /**
+         * Resolves a string resource, caching it so that it's only created once.
+         */
+        String getString(@StringRes int stringRes) {
+            String string = resolvedStrings.get(stringRes);
+            if (string == null) {
+                string = resources.getString(stringRes);
+                resolvedStrings.put(stringRes, string);
+            }
+            return string;
+        }
+
         @VisibleForTesting
         int getIconDimension() {
             return iconDimension;
@@ -691,6 +889,11 @@ class Step {
             return tempRectForLayout;
         }
 
+        @VisibleForTesting
+        Paint.FontMetrics getTempFontMetrics() {
+            return tempFontMetrics;
+        }
+
         Bitmap getIconErrorBitmap() {
             return iconErrorBitmap;
         }
@@ -0,0 +1,96 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+
+import java.util.Arrays;
+
+/**
+ * Tracks which steps depend on the content of other steps, keyed by the ids of the steps' views.
+ */
+class StepDependencyGraph {
+    interface Visitor {
+        void visit(int stepViewId);
+    }
+
+    private static final int[] NO_DEPENDENTS = new int[0];
+
+    private final SparseArray<int[]> dependentsById = new SparseArray<>();
+    private final SparseBooleanArray visited = new SparseBooleanArray();
+    private int[] queue = new int[8];
+
+    void addDependency(int stepViewId, int dependsOnStepViewId) {
+        if (stepViewId == dependsOnStepViewId) {
+            throw new IllegalArgumentException("A step cannot depend on itself.");
+        }
+        int[] dependents = getDependents(dependsOnStepViewId);
+        if (indexOf(dependents, stepViewId) >= 0) {
+            return;
+        }
+        int[] newDependents = Arrays.copyOf(dependents, dependents.length + 1);
+        newDependents[dependents.length] = stepViewId;
+        dependentsById.put(dependsOnStepViewId, newDependents);
+    }
+
+    void removeDependency(int stepViewId, int dependsOnStepViewId) {
+        int[] dependents = getDependents(dependsOnStepViewId);
+        int index = indexOf(dependents, stepViewId);
+        if (index < 0) {
+            return;
+        }
+        if (dependents.length == 1) {
+            dependentsById.remove(dependsOnStepViewId);
+            return;
+        }
+        int[] newDependents = new int[dependents.length - 1];
+        System.arraycopy(dependents, 0, newDependents, 0, index);
+        System.arraycopy(dependents, index + 1, newDependents, index, newDependents.length - index);
+        dependentsById.put(dependsOnStepViewId, newDependents);
+    }
+
+    int[] getDependents(int stepViewId) {
+        return dependentsById.get(stepViewId, NO_DEPENDENTS);
+    }
+
+    boolean isEmpty() {
+        return dependentsById.size() == 0;
+    }
+
+    /**
+     * Visits every step that directly or transitively depends on {@code changedStepViewId} exactly once, in
+     * breadth-first order. The changed step itself is never visited, even if the dependencies form a cycle.
+     */
+    void walkDependents(int changedStepViewId, Visitor visitor) {
+        if (isEmpty()) {
+            return;
+        }
+        visited.clear();
+        visited.put(changedStepViewId, true);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = changedStepViewId;
+        while (head < tail) {
+            int[] dependents = getDependents(queue[head++]);
+            for (int dependent : dependents) {
+                if (visited.get(dependent)) {
+                    continue;
+                }
+                visited.put(dependent, true);
+                visitor.visit(dependent);
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, queue.length * 2);
+                }
+                queue[tail++] = dependent;
+            }
+        }
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,293 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Persists drafts of a stepper's progress to a file on a single background thread.
+ * <p>
+ * Saving never blocks the caller. If a draft is saved while an earlier one is still waiting to be written, only the
+ * latest is written. Each write goes to a temporary file that is synced and then renamed over the draft so that a
+ * crash or power loss mid-write never leaves a partial draft behind.
+ * <p>
+ * There's one store per file, shared by every stepper in the process, and one writer thread shared by every store.
+ * A stepper recreated after a configuration change therefore loads its draft after the previous stepper's pending
+ * write and never writes the same file concurrently.
+ */
+class StepDraftStore {
+    interface LoadCallback {
+        /**
+         * Called on the main thread once the draft has been read.
+         *
+         * @param draft the draft or null if there isn't one or it couldn't be read.
+         */
+        void onDraftLoaded(@Nullable Draft draft);
+    }
+
+    private static final String TAG = "StepDraftStore";
+    private static final int VERSION = 2;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int FLAG_ACTIVE = 1;
+    private static final int FLAG_COMPLETE = 1 << 1;
+    private static final int FLAG_HAS_ERROR = 1 << 2;
+    private static final int FLAG_HAS_SUMMARY = 1 << 3;
+    /** The view id and flags that every step writes. */
+    private static final int MIN_STEP_SIZE = 5;
+    /** The view id and string length that every field writes. */
+    private static final int MIN_FIELD_SIZE = 8;
+
+    private static final Map<String, StepDraftStore> STORES_BY_PATH = new HashMap<>();
+    @Nullable
+    private static Executor writerExecutor;
+
+    private final File file;
+    private final File tempFile;
+    private final Executor executor;
+    private final AtomicReference<Draft> pendingDraft = new AtomicReference<>();
+    private final Runnable writePendingDraft = new Runnable() {
+        @Override
+        public void run() {
+            Draft draft = pendingDraft.getAndSet(null);
+            if (draft != null) {
+                write(draft);
+            }
+        }
+    };
+
+    /**
+     * @return the store for {@code file}, creating it the first time.
+     */
+    @NonNull
+    static StepDraftStore forFile(@NonNull File file) {
+        synchronized (STORES_BY_PATH) {
+            String path = file.getAbsolutePath();
+            StepDraftStore store = STORES_BY_PATH.get(path);
+            if (store == null) {
+                if (writerExecutor == null) {
+                    writerExecutor = createWriterExecutor();
+                }
+                store = new StepDraftStore(file, writerExecutor);
+                STORES_BY_PATH.put(path, store);
+            }
+            return store;
+        }
+    }
+
+    @VisibleForTesting
+    StepDraftStore(@NonNull File file, @NonNull Executor executor) {
+        this.file = file;
+        this.tempFile = new File(file.getPath() + ".tmp");
+        this.executor = executor;
+    }
+
+    private static ExecutorService createWriterExecutor() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable r) {
+                Thread thread = new Thread(r, "VerticalStepper-drafts");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    void save(@NonNull Draft draft) {
+        if (pendingDraft.getAndSet(draft) == null) {
+            executor.execute(writePendingDraft);
+        }
+    }
+
+    void load(@NonNull final LoadCallback callback) {
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Draft draft = read();
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onDraftLoaded(draft);
+                    }
+                });
+            }
+        });
+    }
+
+    void delete() {
+        pendingDraft.set(null);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
+        });
+    }
+
+    @VisibleForTesting
+    void write(@NonNull Draft draft) {
+        try {
+            FileOutputStream fileOut = new FileOutputStream(tempFile);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            try {
+                writeDraft(out, draft);
+                out.flush();
+                // Without this the rename can reach the disk before the data does.
+                fileOut.getFD().sync();
+            } finally {
+                out.close();
+            }
+            if (!tempFile.renameTo(file)) {
+                Log.w(TAG, "Couldn't replace the draft at " + file);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't write the draft to " + file, e);
+        }
+    }
+
+    @VisibleForTesting
+    @Nullable
+    Draft read() {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return readDraft(in);
+            } finally {
+                in.close();
+            }
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't read the draft from " + file, e);
+            return null;
+        }
+    }
+
+    private static void writeDraft(DataOutputStream out, Draft draft) throws IOException {
+        out.writeInt(VERSION);
+        out.writeInt(draft.stepStates.size());
+        for (Step.State state : draft.stepStates) {
+            out.writeInt(state.stepViewId);
+            int flags = (state.active ? FLAG_ACTIVE : 0) | (state.complete ? FLAG_COMPLETE : 0)
+                    | (state.error != null ? FLAG_HAS_ERROR : 0) | (state.summary != null ? FLAG_HAS_SUMMARY : 0);
+            out.writeByte(flags);
+            if (state.error != null) {
+                writeString(out, state.error);
+            }
+            if (state.summary != null) {
+                writeString(out, state.summary);
+            }
+        }
+        out.writeInt(draft.fieldIds.length);
+        for (int i = 0; i < draft.fieldIds.length; i++) {
+            out.writeInt(draft.fieldIds[i]);
+            writeString(out, draft.fieldValues[i]);
+        }
+    }
+
+    /**
+     * Writes the length and UTF-8 bytes of {@code string}. Unlike {@link DataOutputStream#writeUTF(String)} this
+     * isn't limited to 64KB, which a long field could exceed.
+     */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readLength(in, 1, "string length");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Reads a count or length and checks that the rest of the file can hold it so that a corrupt draft fails with an
+     * {@link IOException} rather than a huge or negative allocation.
+     *
+     * @param minItemSize the fewest bytes each counted item takes in the file.
+     */
+    private static int readLength(DataInputStream in, int minItemSize, String name) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available() / minItemSize) {
+            throw new IOException("Invalid " + name + " " + length + ".");
+        }
+        return length;
+    }
+
+    /**
+     * The counts and lengths are checked against the bytes left to read, which {@code in} must report exactly as a
+     * file does.
+     */
+    @Nullable
+    private static Draft readDraft(DataInputStream in) throws IOException {
+        if (in.readInt() != VERSION) {
+            return null;
+        }
+        int stepCount = readLength(in, MIN_STEP_SIZE, "step count");
+        List<Step.State> stepStates = new ArrayList<>(stepCount);
+        for (int i = 0; i < stepCount; i++) {
+            int stepViewId = in.readInt();
+            int flags = in.readByte();
+            String error = (flags & FLAG_HAS_ERROR) != 0 ? readString(in) : null;
+            String summary = (flags & FLAG_HAS_SUMMARY) != 0 ? readString(in) : null;
+            stepStates.add(new Step.State(stepViewId, (flags & FLAG_ACTIVE) != 0, (flags & FLAG_COMPLETE) != 0,
+                    error, summary));
+        }
+        int fieldCount = readLength(in, MIN_FIELD_SIZE, "field count");
+        int[] fieldIds = new int[fieldCount];
+        String[] fieldValues = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fieldIds[i] = in.readInt();
+            fieldValues[i] = readString(in);
+        }
+        return new Draft(stepStates, fieldIds, fieldValues);
+    }
+
+    /**
+     * An immutable snapshot of the step states and the text of the registered fields.
+     */
+    static class Draft {
+        final List<Step.State> stepStates;
+        final int[] fieldIds;
+        final String[] fieldValues;
+
+        Draft(@NonNull List<Step.State> stepStates, @NonNull int[] fieldIds, @NonNull String[] fieldValues) {
+            this.stepStates = stepStates;
+            this.fieldIds = fieldIds;
+            this.fieldValues = fieldValues;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import android.view.View;
+
+/**
+ * An immutable description of a step for {@link VerticalStepper#setSteps(java.util.List)}. The key identifies the step
+ * across calls so that the stepper only needs to apply what changed.
+ */
+public final class StepModel {
+    private final String key;
+    private final View view;
+    private final String title;
+    private final String summary;
+    private final boolean isOptional;
+
+    private StepModel(Builder builder) {
+        key = builder.key;
+        view = builder.view;
+        title = builder.title;
+        summary = builder.summary;
+        isOptional = builder.isOptional;
+    }
+
+    @NonNull
+    public String getKey() {
+        return key;
+    }
+
+    @NonNull
+    public View getView() {
+        return view;
+    }
+
+    @NonNull
+    public String getTitle() {
+        return title;
+    }
+
+    @Nullable
+    public String getSummary() {
+        return summary;
+    }
+
+    public boolean isOptional() {
+        return isOptional;
+    }
+
+    public static class Builder {
+        private final String key;
+        private final View view;
+        private String title;
+        private String summary;
+        private boolean isOptional;
+
+        /**
+         * @param key a key that's unique among the steps and stays the same for as long as the step exists.
+         * @param view the step's view.
+         * @param title the step's title.
+         */
+        public Builder(@NonNull String key, @NonNull View view, @NonNull String title) {
+            if (TextUtils.isEmpty(key)) {
+                throw new IllegalArgumentException("key cannot be empty.");
+            }
+            if (TextUtils.isEmpty(title)) {
+                throw new IllegalArgumentException("title cannot be empty.");
+            }
+            this.key = key;
+            this.view = view;
+            this.title = title;
+        }
+
+        public Builder setSummary(@Nullable String summary) {
+            this.summary = summary;
+            return this;
+        }
+
+        public Builder setOptional(boolean isOptional) {
+            this.isOptional = isOptional;
+            return this;
+        }
+
+        public StepModel build() {
+            return new StepModel(this);
+        }
+    }
+}
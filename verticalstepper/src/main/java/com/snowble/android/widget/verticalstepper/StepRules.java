@@ -0,0 +1,301 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.support.annotation.IdRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.text.TextUtils;
+import android.view.View;
+import android.widget.TextView;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Declarative validation rules for the text fields of a single step.
+ * <p>
+ * Rules are checked in the order they were added and the first failing rule provides the error. Apart from
+ * {@link Builder#required(int, String)}, rules are only checked against fields that aren't empty. If the step is
+ * optional and all the fields its rules check are empty, the step is considered valid but incomplete.
+ * <p>
+ * Rules can be set with {@link VerticalStepper#setStepRules(int, StepRules)} or declared on the step with the
+ * {@code step_validation_*} layout attributes.
+ */
+public final class StepRules {
+    @VisibleForTesting
+    static final int OP_REQUIRED = 1;
+    @VisibleForTesting
+    static final int OP_MIN_LENGTH = 2;
+    @VisibleForTesting
+    static final int OP_MAX_LENGTH = 3;
+    @VisibleForTesting
+    static final int OP_MATCHES = 4;
+    @VisibleForTesting
+    static final int OP_RANGE = 5;
+
+    private final int size;
+    private final int[] ops;
+    private final int[] fieldIds;
+    private final int[] lengths;
+    private final double[] mins;
+    private final double[] maxes;
+    private final Pattern[] patterns;
+    private final ValidationResult[] failures;
+
+    private StepRules(Builder builder) {
+        size = builder.size;
+        ops = Arrays.copyOf(builder.ops, size);
+        fieldIds = Arrays.copyOf(builder.fieldIds, size);
+        lengths = Arrays.copyOf(builder.lengths, size);
+        mins = Arrays.copyOf(builder.mins, size);
+        maxes = Arrays.copyOf(builder.maxes, size);
+        patterns = Arrays.copyOf(builder.patterns, size);
+        failures = new ValidationResult[size];
+        for (int i = 0; i < size; i++) {
+            failures[i] = new ValidationResult(builder.errors[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Resolves the fields referenced by the rules against the step's view.
+     *
+     * @throws IllegalArgumentException if a field can't be found or isn't a {@link TextView}.
+     */
+    @NonNull
+    Program compile(@NonNull View stepView) {
+        return new Program(this, stepView);
+    }
+
+    /**
+     * The rules bound to the fields of a specific step view. Evaluating the program doesn't allocate unless a
+     * {@link Builder#matches(int, String, String) pattern} rule is checked.
+     */
+    static final class Program {
+        private final StepRules rules;
+        private final TextView[] fields;
+        private final Matcher[] matchers;
+
+        private Program(StepRules rules, View stepView) {
+            this.rules = rules;
+            int size = rules.size;
+            fields = new TextView[size];
+            matchers = new Matcher[size];
+            for (int i = 0; i < size; i++) {
+                fields[i] = findField(stepView, rules.fieldIds[i]);
+                if (rules.patterns[i] != null) {
+                    matchers[i] = rules.patterns[i].matcher("");
+                }
+            }
+        }
+
+        boolean isCompiledFrom(StepRules rules) {
+            return this.rules == rules;
+        }
+
+        private static TextView findField(View stepView, int fieldId) {
+            View field = stepView.findViewById(fieldId);
+            if (!(field instanceof TextView)) {
+                throw new IllegalArgumentException("step_validation_field must reference a TextView in the step.");
+            }
+            return (TextView) field;
+        }
+
+        /**
+         * @return the failure for the first broken rule, {@link ValidationResult#VALID_INCOMPLETE_RESULT} if the step
+         *         is optional and all of its fields are empty or null if all the rules pass.
+         */
+        @Nullable
+        ValidationResult evaluate(boolean isOptional) {
+            if (isOptional && areAllFieldsEmpty()) {
+                return ValidationResult.VALID_INCOMPLETE_RESULT;
+            }
+            for (int i = 0, size = rules.size; i < size; i++) {
+                if (!passes(i, fields[i].getText())) {
+                    return rules.failures[i];
+                }
+            }
+            return null;
+        }
+
+        private boolean areAllFieldsEmpty() {
+            for (TextView field : fields) {
+                if (!TextUtils.isEmpty(field.getText())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean passes(int rule, CharSequence text) {
+            int op = rules.ops[rule];
+            if (op == OP_REQUIRED) {
+                return text != null && TextUtils.getTrimmedLength(text) > 0;
+            }
+            if (TextUtils.isEmpty(text)) {
+                return true;
+            }
+            switch (op) {
+                case OP_MIN_LENGTH:
+                    return text.length() >= rules.lengths[rule];
+                case OP_MAX_LENGTH:
+                    return text.length() <= rules.lengths[rule];
+                case OP_MATCHES:
+                    return matchers[rule].reset(text).matches();
+                case OP_RANGE:
+                    double value = parseNumber(text);
+                    return value >= rules.mins[rule] && value <= rules.maxes[rule];
+                default:
+                    throw new IllegalStateException("Unknown rule: " + op);
+            }
+        }
+    }
+
+    /**
+     * Parses a plain decimal number without creating intermediate strings.
+     *
+     * @return the number or {@link Double#NaN} if {@code text} isn't a plain decimal number.
+     */
+    @VisibleForTesting
+    static double parseNumber(@NonNull CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        double value = 0;
+        double fractionScale = 1;
+        boolean inFraction = false;
+        boolean hasDigits = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigits = true;
+                if (inFraction) {
+                    fractionScale /= 10;
+                    value += (c - '0') * fractionScale;
+                } else {
+                    value = value * 10 + (c - '0');
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!hasDigits) {
+            return Double.NaN;
+        }
+        return negative ? -value : value;
+    }
+
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 4;
+
+        private int size;
+        private int[] ops = new int[INITIAL_CAPACITY];
+        private int[] fieldIds = new int[INITIAL_CAPACITY];
+        private int[] lengths = new int[INITIAL_CAPACITY];
+        private double[] mins = new double[INITIAL_CAPACITY];
+        private double[] maxes = new double[INITIAL_CAPACITY];
+        private Pattern[] patterns = new Pattern[INITIAL_CAPACITY];
+        private String[] errors = new String[INITIAL_CAPACITY];
+
+        /**
+         * Requires the field to have non-whitespace text.
+         *
+         * @param fieldId the id of a {@link TextView} inside the step's view.
+         * @param error the error to show when the rule fails.
+         */
+        public Builder required(@IdRes int fieldId, @NonNull String error) {
+            add(OP_REQUIRED, fieldId, error);
+            return this;
+        }
+
+        /**
+         * Requires the field's text to have at least {@code minLength} characters.
+         *
+         * @param fieldId the id of a {@link TextView} inside the step's view.
+         * @param minLength the minimum number of characters.
+         * @param error the error to show when the rule fails.
+         */
+        public Builder minLength(@IdRes int fieldId, int minLength, @NonNull String error) {
+            lengths[add(OP_MIN_LENGTH, fieldId, error)] = minLength;
+            return this;
+        }
+
+        /**
+         * Requires the field's text to have at most {@code maxLength} characters.
+         *
+         * @param fieldId the id of a {@link TextView} inside the step's view.
+         * @param maxLength the maximum number of characters.
+         * @param error the error to show when the rule fails.
+         */
+        public Builder maxLength(@IdRes int fieldId, int maxLength, @NonNull String error) {
+            lengths[add(OP_MAX_LENGTH, fieldId, error)] = maxLength;
+            return this;
+        }
+
+        /**
+         * Requires the entire text of the field to match {@code regex}. The pattern is compiled once, here.
+         *
+         * @param fieldId the id of a {@link TextView} inside the step's view.
+         * @param regex the regular expression to match.
+         * @param error the error to show when the rule fails.
+         */
+        public Builder matches(@IdRes int fieldId, @NonNull String regex, @NonNull String error) {
+            patterns[add(OP_MATCHES, fieldId, error)] = Pattern.compile(regex);
+            return this;
+        }
+
+        /**
+         * Requires the field's text to be a decimal number between {@code min} and {@code max}, inclusive.
+         *
+         * @param fieldId the id of a {@link TextView} inside the step's view.
+         * @param min the minimum value.
+         * @param max the maximum value.
+         * @param error the error to show when the rule fails.
+         */
+        public Builder range(@IdRes int fieldId, double min, double max, @NonNull String error) {
+            int rule = add(OP_RANGE, fieldId, error);
+            mins[rule] = min;
+            maxes[rule] = max;
+            return this;
+        }
+
+        private int add(int op, int fieldId, String error) {
+            if (TextUtils.isEmpty(error)) {
+                throw new IllegalArgumentException("error cannot be empty.");
+            }
+            if (size == ops.length) {
+                grow();
+            }
+            int rule = size++;
+            ops[rule] = op;
+            fieldIds[rule] = fieldId;
+            errors[rule] = error;
+            return rule;
+        }
+
+        private void grow() {
+            int capacity = ops.length * 2;
+            ops = Arrays.copyOf(ops, capacity);
+            fieldIds = Arrays.copyOf(fieldIds, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxes = Arrays.copyOf(maxes, capacity);
+            patterns = Arrays.copyOf(patterns, capacity);
+            errors = Arrays.copyOf(errors, capacity);
+        }
+
+        public StepRules build() {
+            return new StepRules(this);
+        }
+    }
+}
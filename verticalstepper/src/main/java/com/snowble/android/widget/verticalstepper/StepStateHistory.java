@@ -0,0 +1,107 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo and redo history of step states. Every version is a {@link StepStateTree} that shares structure with the
+ * previous one, so a transition only costs the O(log n) nodes it copied.
+ * <p>
+ * Changes are recorded into a working version and become a new version when they're committed. Committing nothing
+ * doesn't create a version.
+ */
+class StepStateHistory {
+    private final int maxVersions;
+    private final List<StepStateTree> versions = new ArrayList<>();
+    private int current;
+    private StepStateTree working;
+
+    /**
+     * @param maxTransitions how many transitions can be undone.
+     */
+    StepStateHistory(int maxTransitions) {
+        if (maxTransitions < 1) {
+            throw new IllegalArgumentException("maxTransitions must be at least 1.");
+        }
+        this.maxVersions = maxTransitions + 1;
+    }
+
+    /**
+     * Forgets all versions and starts again from {@code tree}.
+     */
+    void reset(@NonNull StepStateTree tree) {
+        versions.clear();
+        versions.add(tree);
+        current = 0;
+        working = tree;
+    }
+
+    int size() {
+        return working != null ? working.size() : 0;
+    }
+
+    int getVersionCount() {
+        return versions.size();
+    }
+
+    void record(int index, @NonNull Step.State state) {
+        working = working.set(index, state);
+    }
+
+    void commit() {
+        if (working == versions.get(current)) {
+            return;
+        }
+        for (int i = versions.size() - 1; i > current; i--) {
+            versions.remove(i);
+        }
+        versions.add(working);
+        current++;
+        if (versions.size() > maxVersions) {
+            versions.remove(0);
+            current--;
+        }
+    }
+
+    StepStateTree getWorking() {
+        return working;
+    }
+
+    boolean canUndo() {
+        return current > 0 || working != versions.get(current);
+    }
+
+    /**
+     * Recording a change after undoing drops the versions that could have been redone.
+     */
+    boolean canRedo() {
+        return working == versions.get(current) && current < versions.size() - 1;
+    }
+
+    /**
+     * Commits any recorded changes and then moves back one version.
+     *
+     * @return the version that's now current.
+     */
+    StepStateTree undo() {
+        commit();
+        if (!canUndo()) {
+            throw new IllegalStateException("Nothing to undo.");
+        }
+        working = versions.get(--current);
+        return working;
+    }
+
+    /**
+     * @return the version that's now current.
+     */
+    StepStateTree redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("Nothing to redo.");
+        }
+        working = versions.get(++current);
+        return working;
+    }
+}
@@ -0,0 +1,117 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * An immutable list of step states stored as a binary tree. Setting a state copies only the path from the root to
+ * that state, O(log n) nodes, and shares everything else with the previous tree. Comparing two trees that share
+ * structure skips the shared subtrees.
+ */
+final class StepStateTree {
+    interface DiffVisitor {
+        void onStateChanged(int index, @NonNull Step.State state);
+    }
+
+    private final int size;
+    private final int depth;
+    /**
+     * Either a {@link Step.State} when {@link #depth} is 0 or an {@code Object[2]} node.
+     */
+    private final Object root;
+
+    private StepStateTree(int size, int depth, Object root) {
+        this.size = size;
+        this.depth = depth;
+        this.root = root;
+    }
+
+    static StepStateTree of(@NonNull List<Step.State> states) {
+        int size = states.size();
+        int depth = 0;
+        while ((1 << depth) < size) {
+            depth++;
+        }
+        return new StepStateTree(size, depth, build(states, 0, depth));
+    }
+
+    private static Object build(List<Step.State> states, int offset, int depth) {
+        if (depth == 0) {
+            return offset < states.size() ? states.get(offset) : null;
+        }
+        int half = 1 << (depth - 1);
+        if (offset + half >= states.size()) {
+            return new Object[] {build(states, offset, depth - 1), null};
+        }
+        return new Object[] {build(states, offset, depth - 1), build(states, offset + half, depth - 1)};
+    }
+
+    int size() {
+        return size;
+    }
+
+    Step.State get(int index) {
+        checkIndex(index);
+        Object node = root;
+        for (int level = depth - 1; level >= 0; level--) {
+            node = ((Object[]) node)[(index >> level) & 1];
+        }
+        return (Step.State) node;
+    }
+
+    /**
+     * @return a tree with {@code state} at {@code index} or this tree if it already holds an equal state there.
+     */
+    StepStateTree set(int index, @NonNull Step.State state) {
+        checkIndex(index);
+        if (state.isSameAs(get(index))) {
+            return this;
+        }
+        return new StepStateTree(size, depth, set(root, depth, index, state));
+    }
+
+    private static Object set(Object node, int level, int index, Step.State state) {
+        if (level == 0) {
+            return state;
+        }
+        Object[] children = ((Object[]) node).clone();
+        int child = (index >> (level - 1)) & 1;
+        children[child] = set(children[child], level - 1, index, state);
+        return children;
+    }
+
+    /**
+     * Visits every index where {@code other} holds a different state than this tree. Both trees must have the same
+     * size.
+     */
+    void diff(@NonNull StepStateTree other, @NonNull DiffVisitor visitor) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Can't diff trees of different sizes.");
+        }
+        diff(root, other.root, depth, 0, visitor);
+    }
+
+    private static void diff(Object node, Object otherNode, int level, int offset, DiffVisitor visitor) {
+        if (node == otherNode || otherNode == null) {
+            return;
+        }
+        if (level == 0) {
+            Step.State otherState = (Step.State) otherNode;
+            if (!otherState.isSameAs((Step.State) node)) {
+                visitor.onStateChanged(offset, otherState);
+            }
+            return;
+        }
+        Object[] children = (Object[]) node;
+        Object[] otherChildren = (Object[]) otherNode;
+        diff(children[0], otherChildren[0], level - 1, offset, visitor);
+        diff(children[1], otherChildren[1], level - 1, offset + (1 << (level - 1)), visitor);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size + ".");
+        }
+    }
+}
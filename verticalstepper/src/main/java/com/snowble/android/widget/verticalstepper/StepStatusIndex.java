@@ -0,0 +1,165 @@
+package com.snowble.android.widget.verticalstepper;
+
+import java.util.BitSet;
+
+/**
+ * Mirrors the flags of every step by position so that progress queries don't need to visit each step.
+ */
+class StepStatusIndex {
+    static final int NONE = -1;
+
+    private final BitSet active = new BitSet();
+    private final BitSet complete = new BitSet();
+    private final BitSet error = new BitSet();
+    private final BitSet optional = new BitSet();
+
+    private int size;
+    private int activeCount;
+    private int completeCount;
+    private int errorCount;
+    private int optionalCount;
+    private int activeIndex = NONE;
+
+    void clear() {
+        active.clear();
+        complete.clear();
+        error.clear();
+        optional.clear();
+        size = 0;
+        activeCount = 0;
+        completeCount = 0;
+        errorCount = 0;
+        optionalCount = 0;
+        activeIndex = NONE;
+    }
+
+    void setSize(int size) {
+        if (size < this.size) {
+            for (int i = size; i < this.size; i++) {
+                update(i, false, false, false, false);
+            }
+        }
+        this.size = size;
+    }
+
+    /**
+     * Makes room for a step at {@code index}, shifting later steps up by one.
+     */
+    void insert(int index) {
+        for (int i = size; i > index; i--) {
+            copy(i - 1, i);
+        }
+        clearBits(index);
+        size++;
+        if (activeIndex >= index) {
+            activeIndex++;
+        }
+    }
+
+    /**
+     * Forgets the step at {@code index}, shifting later steps down by one.
+     */
+    void remove(int index) {
+        update(index, false, false, false, false);
+        for (int i = index; i < size - 1; i++) {
+            copy(i + 1, i);
+        }
+        clearBits(size - 1);
+        size--;
+        if (activeIndex > index) {
+            activeIndex--;
+        }
+    }
+
+    private void copy(int from, int to) {
+        active.set(to, active.get(from));
+        complete.set(to, complete.get(from));
+        error.set(to, error.get(from));
+        optional.set(to, optional.get(from));
+    }
+
+    private void clearBits(int index) {
+        active.clear(index);
+        complete.clear(index);
+        error.clear(index);
+        optional.clear(index);
+    }
+
+    void update(int index, boolean isActive, boolean isComplete, boolean hasError, boolean isOptional) {
+        activeCount += set(active, index, isActive);
+        completeCount += set(complete, index, isComplete);
+        errorCount += set(error, index, hasError);
+        optionalCount += set(optional, index, isOptional);
+
+        if (isActive) {
+            activeIndex = index;
+        } else if (activeIndex == index) {
+            activeIndex = active.nextSetBit(0);
+        }
+    }
+
+    /**
+     * @return the change in the number of set bits.
+     */
+    private static int set(BitSet bits, int index, boolean value) {
+        if (bits.get(index) == value) {
+            return 0;
+        }
+        bits.set(index, value);
+        return value ? 1 : -1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getActiveCount() {
+        return activeCount;
+    }
+
+    int getCompleteCount() {
+        return completeCount;
+    }
+
+    int getErrorCount() {
+        return errorCount;
+    }
+
+    int getOptionalCount() {
+        return optionalCount;
+    }
+
+    /**
+     * @return the most recently activated step that's still active or {@link #NONE}.
+     */
+    int getActiveIndex() {
+        return activeIndex;
+    }
+
+    int getFirstErrorIndex() {
+        return error.nextSetBit(0);
+    }
+
+    /**
+     * @return the first active step at or after {@code fromIndex} or {@link #NONE}.
+     */
+    int nextActiveIndex(int fromIndex) {
+        return active.nextSetBit(fromIndex);
+    }
+
+    boolean isActive(int index) {
+        return active.get(index);
+    }
+
+    boolean isComplete(int index) {
+        return complete.get(index);
+    }
+
+    boolean hasError(int index) {
+        return error.get(index);
+    }
+
+    boolean isOptional(int index) {
+        return optional.get(index);
+    }
+}
@@ -0,0 +1,58 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+
+import com.snowble.android.widget.verticalstepper.core.StepperController;
+
+import java.util.List;
+
+/**
+ * Validates steps for the {@link StepperController}. A step's rules are checked first and the {@link StepValidator}
+ * is only called if they pass. The last result is kept so that the stepper can show its error.
+ */
+class StepValidatorAdapter implements StepperController.Validator {
+    private static final StepValidator ALWAYS_VALID = new StepValidator() {
+        @Override
+        public ValidationResult validate(View v, boolean isOptional) {
+            return ValidationResult.VALID_COMPLETE_RESULT;
+        }
+    };
+
+    private final List<Step> steps;
+    @NonNull
+    private StepValidator validator = ALWAYS_VALID;
+    @NonNull
+    private ValidationResult lastResult = ValidationResult.VALID_COMPLETE_RESULT;
+
+    StepValidatorAdapter(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    void setStepValidator(@NonNull StepValidator validator) {
+        this.validator = validator;
+    }
+
+    void removeStepValidator() {
+        validator = ALWAYS_VALID;
+    }
+
+    @NonNull
+    ValidationResult getLastResult() {
+        return lastResult;
+    }
+
+    @Override
+    public int validate(int index, boolean isOptional) {
+        Step step = steps.get(index);
+        StepperTrace.beginSection("VerticalStepper.validate", index);
+        try {
+            ValidationResult ruleResult = step.validateRules();
+            lastResult = ruleResult != null ? ruleResult : validator.validate(step.getInnerView(), isOptional);
+            step.markValidated();
+        } finally {
+            StepperTrace.endSection();
+        }
+        return lastResult.getResult();
+    }
+}
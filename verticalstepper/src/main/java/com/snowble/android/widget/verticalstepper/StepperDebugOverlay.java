@@ -0,0 +1,219 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.text.TextPaint;
+import android.util.TypedValue;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records how long each step took to measure, lay out, draw and validate and draws it on top of the stepper. Nothing
+ * is timed or allocated while it's disabled so the stepper only pays for a field check per step.
+ */
+final class StepperDebugOverlay {
+    private static final int TEXT_SIZE_SP = 10;
+    private static final int BACKGROUND_COLOR = 0xaa000000;
+    private static final long UNKNOWN = -1;
+
+    private final Resources resources;
+    private boolean enabled;
+
+    private long[] measureNanos = new long[0];
+    private long[] layoutNanos = new long[0];
+    private long[] drawNanos = new long[0];
+    private long[] validationNanos = new long[0];
+
+    @Nullable
+    private TextPaint textPaint;
+    @Nullable
+    private Paint backgroundPaint;
+    private final RectF backgroundRect = new RectF();
+    private final StringBuilder text = new StringBuilder();
+
+    StepperDebugOverlay(@NonNull Resources resources) {
+        this.resources = resources;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            // Stale times would be misleading when it's enabled again.
+            Arrays.fill(measureNanos, 0);
+            Arrays.fill(layoutNanos, 0);
+            Arrays.fill(drawNanos, 0);
+            Arrays.fill(validationNanos, UNKNOWN);
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start of a step's work to pass to one of the {@code end} methods or 0 if the overlay is disabled.
+     */
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Forgets the previous measure pass's times.
+     */
+    void startMeasurement() {
+        if (enabled) {
+            Arrays.fill(measureNanos, 0);
+        }
+    }
+
+    /**
+     * Adds to a step's time for the current measure pass since a step is measured in several passes over the steps.
+     */
+    void endMeasure(int index, long startNanos) {
+        if (enabled) {
+            ensureCapacity(index);
+            measureNanos[index] += System.nanoTime() - startNanos;
+        }
+    }
+
+    void endLayout(int index, long startNanos) {
+        if (enabled) {
+            ensureCapacity(index);
+            layoutNanos[index] = System.nanoTime() - startNanos;
+        }
+    }
+
+    void endDraw(int index, long startNanos) {
+        if (enabled) {
+            ensureCapacity(index);
+            drawNanos[index] = System.nanoTime() - startNanos;
+        }
+    }
+
+    void setValidationTime(int index, long nanos) {
+        if (enabled) {
+            ensureCapacity(index);
+            validationNanos[index] = nanos;
+        }
+    }
+
+    @VisibleForTesting
+    int getCapacity() {
+        return measureNanos.length;
+    }
+
+    @VisibleForTesting
+    long getMeasureNanos(int index) {
+        return index < measureNanos.length ? measureNanos[index] : 0;
+    }
+
+    @VisibleForTesting
+    long getLayoutNanos(int index) {
+        return index < layoutNanos.length ? layoutNanos[index] : 0;
+    }
+
+    @VisibleForTesting
+    long getDrawNanos(int index) {
+        return index < drawNanos.length ? drawNanos[index] : 0;
+    }
+
+    @VisibleForTesting
+    long getValidationNanos(int index) {
+        return index < validationNanos.length ? validationNanos[index] : UNKNOWN;
+    }
+
+    private void ensureCapacity(int index) {
+        if (index < measureNanos.length) {
+            return;
+        }
+        int oldCapacity = measureNanos.length;
+        int capacity = Math.max(index + 1, oldCapacity * 2);
+        measureNanos = Arrays.copyOf(measureNanos, capacity);
+        layoutNanos = Arrays.copyOf(layoutNanos, capacity);
+        drawNanos = Arrays.copyOf(drawNanos, capacity);
+        validationNanos = Arrays.copyOf(validationNanos, capacity);
+        Arrays.fill(validationNanos, oldCapacity, capacity, UNKNOWN);
+    }
+
+    /**
+     * Draws a line of stats at the top right of each step and the number of child views at the bottom right.
+     *
+     * @param top the top of the first step.
+     * @param right the right edge of the lines.
+     * @param bottom the bottom of the stepper's content.
+     */
+    void draw(@NonNull Canvas canvas, @NonNull List<Step> steps, int top, int right, int bottom, int childCount) {
+        TextPaint paint = getTextPaint();
+        int stepTop = top;
+        for (int i = 0, size = steps.size(); i < size; i++) {
+            Step step = steps.get(i);
+            formatStep(i, step);
+            drawLine(canvas, paint, right, stepTop - paint.ascent());
+            stepTop += step.calculateYDistanceToNextStep();
+        }
+        text.setLength(0);
+        text.append("children ").append(childCount);
+        drawLine(canvas, paint, right, bottom - paint.descent());
+    }
+
+    private void formatStep(int index, Step step) {
+        text.setLength(0);
+        text.append(index + 1).append(": m ");
+        appendMicros(getMeasureNanos(index));
+        text.append(" l ");
+        appendMicros(getLayoutNanos(index));
+        text.append(" d ");
+        appendMicros(getDrawNanos(index));
+        text.append(" v ");
+        appendMicros(getValidationNanos(index));
+        text.append(" text ");
+        int lookups = step.getTextCacheHits() + step.getTextCacheMisses();
+        if (lookups > 0) {
+            text.append(step.getTextCacheHits() * 100 / lookups).append('%');
+        } else {
+            text.append('-');
+        }
+    }
+
+    private void appendMicros(long nanos) {
+        if (nanos == UNKNOWN) {
+            text.append('-');
+        } else {
+            text.append(nanos / 1000).append("us");
+        }
+    }
+
+    private void drawLine(Canvas canvas, TextPaint paint, float right, float baseline) {
+        int length = text.length();
+        float width = paint.measureText(text, 0, length);
+        backgroundRect.set(right - width, baseline + paint.ascent(), right, baseline + paint.descent());
+        canvas.drawRect(backgroundRect, getBackgroundPaint());
+        canvas.drawText(text, 0, length, right, baseline, paint);
+    }
+
+    private TextPaint getTextPaint() {
+        if (textPaint == null) {
+            textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+            textPaint.setColor(Color.WHITE);
+            textPaint.setTextAlign(Paint.Align.RIGHT);
+            textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, TEXT_SIZE_SP,
+                    resources.getDisplayMetrics()));
+        }
+        return textPaint;
+    }
+
+    private Paint getBackgroundPaint() {
+        if (backgroundPaint == null) {
+            backgroundPaint = new Paint();
+            backgroundPaint.setColor(BACKGROUND_COLOR);
+        }
+        return backgroundPaint;
+    }
+}
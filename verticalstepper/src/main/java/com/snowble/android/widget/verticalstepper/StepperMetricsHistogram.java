@@ -0,0 +1,156 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+
+import java.lang.annotation.Retention;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+/**
+ * A {@link StepperMetricsListener} that counts transition durations in fixed, exponentially sized buckets. Recording
+ * doesn't allocate so it can stay installed in production. It's thread safe so that it can be
+ * {@link #drainTo(StepperMetricsHistogram) drained} and uploaded in batches from a background thread.
+ * <p>
+ * Bucket 0 holds durations under {@link #FIRST_BUCKET_UPPER_BOUND_NANOS}, each following bucket doubles the upper
+ * bound and the last bucket holds everything longer.
+ */
+public final class StepperMetricsHistogram implements StepperMetricsListener {
+    @Retention(SOURCE)
+    @IntDef({PHASE_VALIDATION, PHASE_MEASURE, PHASE_LAYOUT, PHASE_DRAW, PHASE_TOTAL})
+    public @interface Phase {}
+    public static final int PHASE_VALIDATION = 0;
+    public static final int PHASE_MEASURE = 1;
+    public static final int PHASE_LAYOUT = 2;
+    public static final int PHASE_DRAW = 3;
+    public static final int PHASE_TOTAL = 4;
+    public static final int PHASE_COUNT = 5;
+
+    public static final int BUCKET_COUNT = 16;
+    public static final long FIRST_BUCKET_UPPER_BOUND_NANOS = TimeUnit.MICROSECONDS.toNanos(125);
+
+    private final long[] counts = new long[PHASE_COUNT * BUCKET_COUNT];
+    private final long[] sums = new long[PHASE_COUNT];
+    private final long[] maxes = new long[PHASE_COUNT];
+    private long transitionCount;
+
+    /**
+     * @return the exclusive upper bound of {@code bucket} or {@link Long#MAX_VALUE} for the last bucket.
+     */
+    public static long getBucketUpperBoundNanos(int bucket) {
+        checkBucket(bucket);
+        return bucket < BUCKET_COUNT - 1 ? FIRST_BUCKET_UPPER_BOUND_NANOS << bucket : Long.MAX_VALUE;
+    }
+
+    static int getBucket(long nanos) {
+        if (nanos < FIRST_BUCKET_UPPER_BOUND_NANOS) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(nanos / FIRST_BUCKET_UPPER_BOUND_NANOS);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    @Override
+    public synchronized void onTransitionMetrics(@Transition int transition, int stepIndex, long validationNanos,
+                                                 long measureNanos, long layoutNanos, long drawNanos,
+                                                 long totalNanos) {
+        transitionCount++;
+        record(PHASE_VALIDATION, validationNanos);
+        record(PHASE_MEASURE, measureNanos);
+        record(PHASE_LAYOUT, layoutNanos);
+        record(PHASE_DRAW, drawNanos);
+        record(PHASE_TOTAL, totalNanos);
+    }
+
+    private void record(int phase, long nanos) {
+        nanos = Math.max(0, nanos);
+        counts[phase * BUCKET_COUNT + getBucket(nanos)]++;
+        sums[phase] += nanos;
+        maxes[phase] = Math.max(maxes[phase], nanos);
+    }
+
+    public synchronized long getTransitionCount() {
+        return transitionCount;
+    }
+
+    public synchronized long getCount(@Phase int phase, int bucket) {
+        checkPhase(phase);
+        checkBucket(bucket);
+        return counts[phase * BUCKET_COUNT + bucket];
+    }
+
+    public synchronized long getSumNanos(@Phase int phase) {
+        checkPhase(phase);
+        return sums[phase];
+    }
+
+    public synchronized long getMaxNanos(@Phase int phase) {
+        checkPhase(phase);
+        return maxes[phase];
+    }
+
+    /**
+     * @param percentile a percentile between 0 and 100.
+     * @return the upper bound of the bucket that holds the percentile, capped at the longest duration recorded, or 0
+     * if nothing was recorded.
+     */
+    public synchronized long getPercentileNanos(@Phase int phase, double percentile) {
+        checkPhase(phase);
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100.");
+        }
+        if (transitionCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(transitionCount * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts[phase * BUCKET_COUNT + bucket];
+            if (seen >= rank) {
+                return Math.min(getBucketUpperBoundNanos(bucket), maxes[phase]);
+            }
+        }
+        return maxes[phase];
+    }
+
+    /**
+     * Moves everything recorded so far into {@code target}, replacing its contents, and resets this histogram. Pass
+     * the same target each time to sample without allocating.
+     */
+    public void drainTo(@NonNull StepperMetricsHistogram target) {
+        if (target == this) {
+            throw new IllegalArgumentException("Cannot drain a histogram into itself.");
+        }
+        synchronized (this) {
+            synchronized (target) {
+                System.arraycopy(counts, 0, target.counts, 0, counts.length);
+                System.arraycopy(sums, 0, target.sums, 0, sums.length);
+                System.arraycopy(maxes, 0, target.maxes, 0, maxes.length);
+                target.transitionCount = transitionCount;
+            }
+            reset();
+        }
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(sums, 0);
+        Arrays.fill(maxes, 0);
+        transitionCount = 0;
+    }
+
+    private static void checkPhase(int phase) {
+        if (phase < 0 || phase >= PHASE_COUNT) {
+            throw new IllegalArgumentException("Unknown phase " + phase + ".");
+        }
+    }
+
+    private static void checkBucket(int bucket) {
+        if (bucket < 0 || bucket >= BUCKET_COUNT) {
+            throw new IndexOutOfBoundsException("Bucket " + bucket + " is out of bounds for size " + BUCKET_COUNT
+                    + ".");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+public interface StepperMetricsListener {
+    @Retention(SOURCE)
+    @IntDef({TRANSITION_HEADER_TAP, TRANSITION_CONTINUE})
+    @interface Transition {}
+    /**
+     * The user tapped a step's header.
+     */
+    int TRANSITION_HEADER_TAP = 1;
+    /**
+     * The user tapped a step's continue button.
+     */
+    int TRANSITION_CONTINUE = 2;
+
+    /**
+     * Called on the main thread once the stepper has drawn the first frame after a transition, or after a few frames
+     * without a draw, e.g. when the stepper isn't visible. The durations only cover the stepper's own work between
+     * the tap and that frame. Implementations shouldn't allocate since this is called for every transition.
+     *
+     * @param transition what the user tapped.
+     * @param stepIndex the position of the tapped step.
+     * @param validationNanos the time spent validating steps.
+     * @param measureNanos the time spent measuring the stepper.
+     * @param layoutNanos the time spent laying out the stepper.
+     * @param drawNanos the time spent drawing the stepper.
+     * @param totalNanos the time from the tap until the frame was drawn.
+     *
+     * @see VerticalStepper#setMetricsListener(StepperMetricsListener)
+     * @see StepperMetricsHistogram
+     */
+    void onTransitionMetrics(@Transition int transition, int stepIndex, long validationNanos, long measureNanos,
+                             long layoutNanos, long drawNanos, long totalNanos);
+}
@@ -0,0 +1,121 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import java.util.Arrays;
+
+/**
+ * An immutable description of every step's title, summary, error and flags, for
+ * {@link VerticalStepper#bind(StepperState)}. Build one per item and rebind recycled steppers to it.
+ */
+public final class StepperState {
+    private final int size;
+    private final String[] titles;
+    private final String[] summaries;
+    private final String[] errors;
+    private final boolean[] active;
+    private final boolean[] complete;
+
+    private StepperState(Builder builder) {
+        size = builder.size;
+        titles = Arrays.copyOf(builder.titles, size);
+        summaries = Arrays.copyOf(builder.summaries, size);
+        errors = Arrays.copyOf(builder.errors, size);
+        active = Arrays.copyOf(builder.active, size);
+        complete = Arrays.copyOf(builder.complete, size);
+    }
+
+    public int getStepCount() {
+        return size;
+    }
+
+    @NonNull
+    public String getTitle(int index) {
+        return titles[index];
+    }
+
+    @Nullable
+    public String getSummary(int index) {
+        return summaries[index];
+    }
+
+    @Nullable
+    public String getError(int index) {
+        return errors[index];
+    }
+
+    public boolean isActive(int index) {
+        return active[index];
+    }
+
+    public boolean isComplete(int index) {
+        return complete[index];
+    }
+
+    /**
+     * Adds steps one at a time. The setters apply to the step that was added last.
+     */
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 4;
+
+        private int size;
+        private String[] titles = new String[INITIAL_CAPACITY];
+        private String[] summaries = new String[INITIAL_CAPACITY];
+        private String[] errors = new String[INITIAL_CAPACITY];
+        private boolean[] active = new boolean[INITIAL_CAPACITY];
+        private boolean[] complete = new boolean[INITIAL_CAPACITY];
+
+        public Builder addStep(@NonNull String title) {
+            if (TextUtils.isEmpty(title)) {
+                throw new IllegalArgumentException("title cannot be empty.");
+            }
+            if (size == titles.length) {
+                grow();
+            }
+            titles[size++] = title;
+            return this;
+        }
+
+        public Builder setSummary(@Nullable String summary) {
+            summaries[lastStep()] = summary;
+            return this;
+        }
+
+        public Builder setError(@Nullable String error) {
+            errors[lastStep()] = error;
+            return this;
+        }
+
+        public Builder setActive(boolean isActive) {
+            active[lastStep()] = isActive;
+            return this;
+        }
+
+        public Builder setComplete(boolean isComplete) {
+            complete[lastStep()] = isComplete;
+            return this;
+        }
+
+        private int lastStep() {
+            if (size == 0) {
+                throw new IllegalStateException("Add a step first.");
+            }
+            return size - 1;
+        }
+
+        private void grow() {
+            int capacity = titles.length * 2;
+            titles = Arrays.copyOf(titles, capacity);
+            summaries = Arrays.copyOf(summaries, capacity);
+            errors = Arrays.copyOf(errors, capacity);
+            active = Arrays.copyOf(active, capacity);
+            complete = Arrays.copyOf(complete, capacity);
+        }
+
+        public StepperState build() {
+            return new StepperState(this);
+        }
+    }
+}
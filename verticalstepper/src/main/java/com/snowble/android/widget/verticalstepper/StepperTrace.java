@@ -0,0 +1,42 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.support.v4.os.TraceCompat;
+
+/**
+ * Systrace sections for the stepper's work. They cost a single static read when tracing is disabled.
+ */
+final class StepperTrace {
+    private static boolean enabled;
+
+    private StepperTrace() {
+    }
+
+    static void setEnabled(boolean isEnabled) {
+        enabled = isEnabled;
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void beginSection(String sectionName) {
+        if (enabled) {
+            TraceCompat.beginSection(sectionName);
+        }
+    }
+
+    /**
+     * Begins a section named after a step, e.g. "VerticalStepper.validate 3".
+     */
+    static void beginSection(String sectionName, int stepIndex) {
+        if (enabled) {
+            TraceCompat.beginSection(sectionName + " " + stepIndex);
+        }
+    }
+
+    static void endSection() {
+        if (enabled) {
+            TraceCompat.endSection();
+        }
+    }
+}
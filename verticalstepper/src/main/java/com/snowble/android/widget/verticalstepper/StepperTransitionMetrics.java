@@ -0,0 +1,179 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.view.ViewCompat;
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * Times a stepper's work from a tap until the next frame in which it's drawn and reports it to a
+ * {@link StepperMetricsListener}. Frames are detected with {@link Choreographer} frame callbacks where they're
+ * available. Nothing is timed and nothing is allocated while there's no listener.
+ */
+final class StepperTransitionMetrics {
+    /**
+     * How many frames to wait for the stepper to be drawn before reporting the transition anyway.
+     */
+    @VisibleForTesting
+    static final int MAX_FRAMES = 3;
+
+    private final View view;
+    @Nullable
+    private StepperMetricsListener listener;
+    @Nullable
+    private FrameCallback frameCallback;
+    private final Runnable frameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            onFrame();
+        }
+    };
+
+    private boolean inTransition;
+    private boolean drawn;
+    private boolean frameScheduled;
+    private int framesRemaining;
+    private int transition;
+    private int stepIndex;
+    private long startNanos;
+    private long validationNanos;
+    private long measureNanos;
+    private long layoutNanos;
+    private long drawNanos;
+    private long drawEndNanos;
+
+    StepperTransitionMetrics(@NonNull View view) {
+        this.view = view;
+    }
+
+    void setListener(@Nullable StepperMetricsListener listener) {
+        this.listener = listener;
+        if (listener == null) {
+            inTransition = false;
+        }
+    }
+
+    /**
+     * @return whether a transition is waiting for its frame.
+     */
+    boolean isInTransition() {
+        return inTransition;
+    }
+
+    /**
+     * Starts timing a transition. One that's still waiting for its frame is replaced.
+     */
+    void begin(@StepperMetricsListener.Transition int transition, int stepIndex) {
+        if (listener == null) {
+            return;
+        }
+        inTransition = true;
+        drawn = false;
+        framesRemaining = MAX_FRAMES;
+        this.transition = transition;
+        this.stepIndex = stepIndex;
+        validationNanos = 0;
+        measureNanos = 0;
+        layoutNanos = 0;
+        drawNanos = 0;
+        drawEndNanos = 0;
+        startNanos = System.nanoTime();
+        scheduleFrame();
+    }
+
+    /**
+     * @return the start of a phase to pass to one of the {@code end} methods or 0 if no transition is being timed.
+     */
+    long startPhase() {
+        return isTiming() ? System.nanoTime() : 0;
+    }
+
+    void addValidationTime(long nanos) {
+        if (isTiming()) {
+            validationNanos += nanos;
+        }
+    }
+
+    void endMeasure(long phaseStartNanos) {
+        if (isTiming() && phaseStartNanos != 0) {
+            measureNanos += System.nanoTime() - phaseStartNanos;
+        }
+    }
+
+    void endLayout(long phaseStartNanos) {
+        if (isTiming() && phaseStartNanos != 0) {
+            layoutNanos += System.nanoTime() - phaseStartNanos;
+        }
+    }
+
+    void endDraw(long phaseStartNanos) {
+        if (isTiming() && phaseStartNanos != 0) {
+            drawEndNanos = System.nanoTime();
+            drawNanos += drawEndNanos - phaseStartNanos;
+            drawn = true;
+        }
+    }
+
+    private boolean isTiming() {
+        return inTransition && !drawn;
+    }
+
+    private void scheduleFrame() {
+        if (frameScheduled) {
+            return;
+        }
+        frameScheduled = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (frameCallback == null) {
+                frameCallback = new FrameCallback(this);
+            }
+            frameCallback.post();
+        } else {
+            ViewCompat.postOnAnimation(view, frameRunnable);
+        }
+    }
+
+    @VisibleForTesting
+    void onFrame() {
+        frameScheduled = false;
+        if (!inTransition) {
+            return;
+        }
+        if (!drawn && --framesRemaining > 0) {
+            scheduleFrame();
+            return;
+        }
+        inTransition = false;
+        long endNanos = drawn ? drawEndNanos : System.nanoTime();
+        StepperMetricsListener listener = this.listener;
+        if (listener != null) {
+            listener.onTransitionMetrics(transition, stepIndex, validationNanos, measureNanos, layoutNanos, drawNanos,
+                    endNanos - startNanos);
+        }
+    }
+
+    /**
+     * Kept apart so that {@link Choreographer} is only loaded on versions that have it.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FrameCallback implements Choreographer.FrameCallback {
+        private final StepperTransitionMetrics metrics;
+
+        FrameCallback(StepperTransitionMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            metrics.onFrame();
+        }
+    }
+}
@@ -3,8 +3,14 @@ package com.snowble.android.widget.verticalstepper;
 import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.StringRes;
+import android.support.annotation.VisibleForTesting;
+import android.util.SparseArray;
+
+import com.snowble.android.widget.verticalstepper.core.StepperController;
 
 import java.lang.annotation.Retention;
+import java.util.HashMap;
 
 import static java.lang.annotation.RetentionPolicy.SOURCE;
 
@@ -17,18 +23,18 @@ public class ValidationResult {
      *
      * @see #VALID_COMPLETE_RESULT
      */
-    public static final int VALID_COMPLETE = 1;
+    public static final int VALID_COMPLETE = StepperController.VALID_COMPLETE;
     /**
      * For use with a step that is both valid but incomplete. Use this for an optional step that's incomplete but
      * that isn't considered an error.
      *
      * @see #VALID_INCOMPLETE_RESULT
      */
-    public static final int VALID_INCOMPLETE = 2;
+    public static final int VALID_INCOMPLETE = StepperController.VALID_INCOMPLETE;
     /**
      * For use with a step that has an error of some kind. This can be used for both optional and required steps.
      */
-    public static final int INVALID = 3;
+    public static final int INVALID = StepperController.INVALID;
 
     /**
      * @see #VALID_COMPLETE
@@ -40,8 +46,70 @@ public class ValidationResult {
      */
     public static ValidationResult VALID_INCOMPLETE_RESULT = new ValidationResult(VALID_INCOMPLETE, null);
 
+    @VisibleForTesting
+    static final int MAX_INTERNED_RESULTS = 64;
+    private static final HashMap<String, ValidationResult> INTERNED_BY_ERROR = new HashMap<>();
+    private static final SparseArray<ValidationResult> INTERNED_BY_ERROR_RES = new SparseArray<>();
+
     private final int result;
     private final String error;
+    private final int errorRes;
+
+    /**
+     * Returns an invalid result for {@code error}, reusing the same instance for repeated errors so that validators
+     * don't need to allocate a new result each time they fail.
+     *
+     * @param error error to be used.
+     *
+     * @see #invalid(int)
+     */
+    @NonNull
+    public static ValidationResult invalid(@NonNull String error) {
+        synchronized (INTERNED_BY_ERROR) {
+            ValidationResult interned = INTERNED_BY_ERROR.get(error);
+            if (interned == null) {
+                interned = new ValidationResult(error);
+                if (INTERNED_BY_ERROR.size() < MAX_INTERNED_RESULTS) {
+                    INTERNED_BY_ERROR.put(error, interned);
+                }
+            }
+            return interned;
+        }
+    }
+
+    /**
+     * Returns an invalid result whose error is a string resource. The string is only resolved when the error is
+     * shown and the same instance is returned for repeated errors.
+     *
+     * @param errorRes the string resource of the error to be used.
+     *
+     * @see #invalid(String)
+     */
+    @NonNull
+    public static ValidationResult invalid(@StringRes int errorRes) {
+        synchronized (INTERNED_BY_ERROR_RES) {
+            ValidationResult interned = INTERNED_BY_ERROR_RES.get(errorRes);
+            if (interned == null) {
+                interned = new ValidationResult(INVALID, null, errorRes);
+                if (INTERNED_BY_ERROR_RES.size() < MAX_INTERNED_RESULTS) {
+                    INTERNED_BY_ERROR_RES.put(errorRes, interned);
+                }
+            }
+            return interned;
+        }
+    }
+
+    static int getInternedErrorCount() {
+        synchronized (INTERNED_BY_ERROR) {
+            return INTERNED_BY_ERROR.size();
+        }
+    }
+
+    static int getInternedErrorResCount() {
+        synchronized (INTERNED_BY_ERROR_RES) {
+            return INTERNED_BY_ERROR_RES.size();
+        }
+    }
 
     /**
      * Constructs an invalid result.
@@ -67,15 +135,34 @@ public class ValidationResult {
      * @see #VALID_INCOMPLETE_RESULT
      */
     public ValidationResult(@Result int result, @Nullable String error) {
+        this(result, error, 0);
+    }
+
+    private ValidationResult(@Result int result, @Nullable String error, @StringRes int errorRes) {
         this.result = result;
         this.error = error;
+        this.errorRes = errorRes;
     }
 
     public @Result int getResult() {
         return result;
     }
 
+    /**
+     * @return the error or null if there isn't one or it's a string resource.
+     *
+     * @see #getErrorRes()
+     */
     public String getError() {
         return error;
     }
+
+    /**
+     * @return the string resource of the error or 0 if there isn't one.
+     *
+     * @see #invalid(int)
+     */
+    public @StringRes int getErrorRes() {
+        return errorRes;
+    }
 }
@@ -18,27 +18,136 @@ import android.support.annotation.VisibleForTesting;
 import android.support.v4.content.res.ResourcesCompat;
 import android.support.v4.view.AbsSavedState;
 import android.support.v7.widget.AppCompatButton;
+import android.text.Editable;
 import android.text.TextPaint;
 import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.util.AttributeSet;
+import android.util.SparseArray;
 import android.view.ContextThemeWrapper;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.TextView;
 
+import com.snowble.android.widget.verticalstepper.core.StepLayout;
+import com.snowble.android.widget.verticalstepper.core.StepLayoutEngine;
+import com.snowble.android.widget.verticalstepper.core.StepMetrics;
+import com.snowble.android.widget.verticalstepper.core.StepperController;
+
+import java.io.File;
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class VerticalStepper extends ViewGroup {
+    private static final long DEFAULT_VALIDATION_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+    private static final long DRAFT_WRITE_DELAY_MILLIS = 1000;
+
     private Context context;
     private Resources resources;
-    private Step.Common commonStepValues;
-    private AlwaysValidValidator alwaysValidValidator = new AlwaysValidValidator();
-    @NonNull
-    private StepValidator validator = alwaysValidValidator;
+    @VisibleForTesting
+    Step.Common commonStepValues;
+    /**
+     * Owns the steps' active, complete and error transitions. The stepper mirrors every other change into it and
+     * renders the changes it reports.
+     */
+    @VisibleForTesting
+    final StepperController controller = new StepperController(0);
+    private StepValidatorAdapter stepValidator;
+    private final StepperController.Listener controllerListener = new StepperController.Listener() {
+        @Override
+        public void onStepChanged(int index, int changes) {
+            renderStepChange(steps.get(index), changes);
+        }
+
+        @Override
+        public void onStepValidated(int index, int result, long durationNanos) {
+            reportValidationTime(steps.get(index), durationNanos);
+        }
+    };
+    private long validationBudgetNanos = DEFAULT_VALIDATION_BUDGET_NANOS;
+    @Nullable
+    private SlowValidationListener slowValidationListener;
+    private boolean strictValidationBudget;
+    private final StepperTransitionMetrics transitionMetrics = new StepperTransitionMetrics(this);
+    @VisibleForTesting
+    final StepperDebugOverlay debugOverlay = new StepperDebugOverlay(getResources());
+    private final StepDependencyGraph dependencyGraph = new StepDependencyGraph();
+    private final StepDependencyGraph.Visitor markForRevalidationVisitor = new StepDependencyGraph.Visitor() {
+        @Override
+        public void visit(int stepViewId) {
+            Step step = findStep(stepViewId);
+            if (step != null) {
+                step.setNeedsRevalidation(true);
+                markedStepIds.add(stepViewId);
+            }
+        }
+    };
+    private final MarkedStepIds markedStepIds = new MarkedStepIds();
+
+    @Nullable
+    private StepDraftStore draftStore;
+    private final List<TextView> draftFields = new ArrayList<>();
+    private boolean draftWriteScheduled;
+    @Nullable
+    private StepDraftStore.Draft loadedDraft;
+    private boolean restoredFromSavedState;
+    private final Runnable saveDraftRunnable = new Runnable() {
+        @Override
+        public void run() {
+            saveDraft();
+        }
+    };
+    private final TextWatcher draftFieldWatcher = new TextWatcher() {
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+        }
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) {
+        }
+
+        @Override
+        public void afterTextChanged(Editable s) {
+            scheduleDraftWrite();
+        }
+    };
+    private final StepDraftStore.LoadCallback draftLoadCallback = new StepDraftStore.LoadCallback() {
+        @Override
+        public void onDraftLoaded(@Nullable StepDraftStore.Draft draft) {
+            if (draft != null && !restoredFromSavedState) {
+                loadedDraft = draft;
+                applyLoadedDraft();
+            }
+        }
+    };
+
+    @Nullable
+    private StepStateHistory history;
+    private boolean historyStale;
+    private final StepStateTree.DiffVisitor historyVisitor = new StepStateTree.DiffVisitor() {
+        @Override
+        public void onStateChanged(int index, @NonNull Step.State state) {
+            Step step = steps.get(index);
+            step.restoreState(state);
+            syncVisibilityWithActiveState(step);
+            syncStatus(step);
+        }
+    };
 
     @VisibleForTesting
     List<Step> steps;
+    @VisibleForTesting
+    final SparseArray<Step> stepsById = new SparseArray<>();
+    @VisibleForTesting
+    final StepStatusIndex statusIndex = new StepStatusIndex();
+    private final StepMetrics stepMetrics = new StepMetrics();
+    private final StepLayout stepLayout = new StepLayout();
 
     @VisibleForTesting
     int outerHorizontalPadding;
@@ -54,6 +163,30 @@ public class VerticalStepper extends ViewGroup {
     int continueButtonStyle;
 
     private SavedState savedState;
+    /**
+     * The last state handed out by {@link #onSaveInstanceState()}, kept so that {@link #dump(PrintWriter)} can report
+     * how big it was without encoding the steps again.
+     */
+    @Nullable
+    private SavedState lastSavedState;
+    private boolean stepsInitialized;
+    @Nullable
+    private List<StepModel> pendingStepModels;
+    @Nullable
+    private ContextThemeWrapper continueButtonContext;
+
+    private int batchDepth;
+    private boolean layoutRequestedInBatch;
+    private boolean invalidateRequestedInBatch;
+
+    /**
+     * The icon text of each step number, formatted for {@link #stepNumberLocale}, so drawing doesn't allocate.
+     */
+    private String[] stepNumberStrings = new String[0];
+    private final StringBuilder dumpLine = new StringBuilder();
+    private char[] dumpChars = new char[0];
+    @Nullable
+    private Locale stepNumberLocale;
 
     public VerticalStepper(Context context) {
         super(context);
@@ -94,74 +227,854 @@ public class VerticalStepper extends ViewGroup {
         context = getContext();
         resources = getResources();
 
-        initPropertiesFromAttrs(attrs, defStyleAttr, defStyleRes);
-        initPadding();
+        initPropertiesFromAttrs(attrs, defStyleAttr, defStyleRes);
+        initPadding();
+
+        commonStepValues = new Step.Common(context, iconActiveColor, iconInactiveColor, iconCompleteColor);
+        steps = new ArrayList<>();
+        stepValidator = new StepValidatorAdapter(steps);
+        controller.setValidator(stepValidator);
+        controller.setListener(controllerListener);
+    }
+
+    @VisibleForTesting
+    void initPropertiesFromAttrs(@Nullable AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.VerticalStepper,
+                    defStyleAttr, defStyleRes);
+        try {
+            initIconPropertiesFromAttrs(a);
+            initNavButtonPropertiesFromAttrs(a);
+        } finally {
+            a.recycle();
+        }
+    }
+
+    private void initIconPropertiesFromAttrs(TypedArray a) {
+        int defaultActiveColor =
+                ThemeUtils.getResolvedAttributeData(context.getTheme(), R.attr.colorPrimary, R.color.bg_active_icon);
+        iconActiveColor = a.getColor(R.styleable.VerticalStepper_iconColorActive,
+                ResourcesCompat.getColor(resources, defaultActiveColor, context.getTheme()));
+        iconInactiveColor = a.getColor(R.styleable.VerticalStepper_iconColorInactive,
+                ResourcesCompat.getColor(resources, R.color.bg_inactive_icon, context.getTheme()));
+        iconCompleteColor = a.getColor(R.styleable.VerticalStepper_iconColorComplete,
+                iconActiveColor);
+    }
+
+    @SuppressLint("PrivateResource") // https://code.google.com/p/android/issues/detail?id=230985
+    private void initNavButtonPropertiesFromAttrs(TypedArray a) {
+        continueButtonStyle = a.getResourceId(
+                R.styleable.VerticalStepper_continueButtonStyle, R.style.Widget_AppCompat_Button_Colored);
+    }
+
+    private void initPadding() {
+        outerHorizontalPadding = resources.getDimensionPixelSize(R.dimen.outer_padding_horizontal);
+        outerVerticalPadding = resources.getDimensionPixelSize(R.dimen.outer_padding_vertical);
+    }
+
+    /**
+     * Set a validator that can indicate a step has an invalid state when the user attempts to move to the next step.
+     *
+     * @param validator the validator
+     */
+    public void setStepValidator(@NonNull StepValidator validator) {
+        stepValidator.setStepValidator(validator);
+    }
+
+    /**
+     * Removes the validator
+     */
+    public void removeStepValidator() {
+        stepValidator.removeStepValidator();
+    }
+
+    /**
+     * Set how long validating a single step may take before it's reported as slow. Validation runs on the main thread
+     * so anything close to a frame will cause jank. The default is 8 milliseconds.
+     *
+     * @param budget the maximum time validation should take.
+     * @param unit the unit of {@code budget}.
+     *
+     * @see #setSlowValidationListener(SlowValidationListener)
+     * @see #setStrictValidationBudget(boolean)
+     */
+    public void setValidationTimeBudget(long budget, @NonNull TimeUnit unit) {
+        validationBudgetNanos = unit.toNanos(budget);
+    }
+
+    /**
+     * Set a listener to be told whenever validating a step goes over the validation budget.
+     *
+     * @param listener the listener or null to remove it.
+     */
+    public void setSlowValidationListener(@Nullable SlowValidationListener listener) {
+        slowValidationListener = listener;
+    }
+
+    /**
+     * Set whether going over the validation budget should throw an {@link IllegalStateException}, similar to a
+     * StrictMode death penalty. This is meant for debug builds so that slow validators are found early.
+     *
+     * @param strict whether to throw when the budget is exceeded.
+     */
+    public void setStrictValidationBudget(boolean strict) {
+        strictValidationBudget = strict;
+    }
+
+    /**
+     * Set a listener to be told how long each header or continue tap took until the stepper drew the result. Use a
+     * {@link StepperMetricsHistogram} to aggregate them without allocating.
+     *
+     * @param listener the listener or null to stop timing transitions.
+     */
+    public void setMetricsListener(@Nullable StepperMetricsListener listener) {
+        transitionMetrics.setListener(listener);
+    }
+
+    /**
+     * Set whether to draw each step's last measure, layout, draw and validation times and its text cache hit rate on
+     * top of the stepper, along with the number of child views. This is meant for debug builds. The times are only
+     * recorded while the overlay is enabled.
+     *
+     * @param enabled whether to draw the overlay.
+     */
+    public void setDebugOverlayEnabled(boolean enabled) {
+        debugOverlay.setEnabled(enabled);
+        requestLayout();
+        invalidate();
+    }
+
+    public boolean isDebugOverlayEnabled() {
+        return debugOverlay.isEnabled();
+    }
+
+    /**
+     * Set whether steppers should add systrace sections for initializing, measuring, laying out and drawing their
+     * steps, for validation and for step transitions. Sections for a single step are named with its index. This
+     * applies to all steppers and should be called on the main thread.
+     *
+     * @param enabled whether to add the sections.
+     */
+    public static void setTracingEnabled(boolean enabled) {
+        StepperTrace.setEnabled(enabled);
+    }
+
+    /**
+     * Persist the progress of the stepper to {@code file} so that it survives process death. The step states and the
+     * text of any {@link #registerDraftField(TextView) registered fields} are written shortly after they change, on a
+     * background thread.
+     * <p>
+     * An existing draft in {@code file} is read in the background and applied once it's loaded, unless the stepper
+     * was already restored from its saved instance state. The file should be app-private, e.g. in
+     * {@link Context#getFilesDir()}.
+     *
+     * @param file the file that holds the draft.
+     */
+    public void enableDraftPersistence(@NonNull File file) {
+        if (draftStore != null && draftStore.getFile().equals(file)) {
+            return;
+        }
+        draftStore = StepDraftStore.forFile(file);
+        draftStore.load(draftLoadCallback);
+    }
+
+    /**
+     * Include the text of a field in the draft. The field must have an id, which is used to restore its text.
+     *
+     * @param field the field to persist.
+     *
+     * @see #enableDraftPersistence(File)
+     */
+    public void registerDraftField(@NonNull TextView field) {
+        if (field.getId() == View.NO_ID) {
+            throw new IllegalArgumentException("Draft fields must have an id.");
+        }
+        if (!draftFields.contains(field)) {
+            draftFields.add(field);
+            field.addTextChangedListener(draftFieldWatcher);
+        }
+    }
+
+    /**
+     * Delete the draft, e.g. once the form has been submitted. Persistence stays enabled.
+     */
+    public void clearDraft() {
+        removeCallbacks(saveDraftRunnable);
+        draftWriteScheduled = false;
+        loadedDraft = null;
+        if (draftStore != null) {
+            draftStore.delete();
+        }
+    }
+
+    private void scheduleDraftWrite() {
+        if (draftStore != null && !draftWriteScheduled) {
+            draftWriteScheduled = true;
+            postDelayed(saveDraftRunnable, DRAFT_WRITE_DELAY_MILLIS);
+        }
+    }
+
+    private void saveDraft() {
+        draftWriteScheduled = false;
+        if (draftStore == null) {
+            return;
+        }
+        int fieldCount = draftFields.size();
+        int[] fieldIds = new int[fieldCount];
+        String[] fieldValues = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            TextView field = draftFields.get(i);
+            fieldIds[i] = field.getId();
+            fieldValues[i] = field.getText().toString();
+        }
+        draftStore.save(new StepDraftStore.Draft(generateStepStates(), fieldIds, fieldValues));
+    }
+
+    private void applyLoadedDraft() {
+        StepDraftStore.Draft draft = loadedDraft;
+        if (draft == null || steps.isEmpty()) {
+            return;
+        }
+        loadedDraft = null;
+        for (int i = 0; i < draft.fieldIds.length; i++) {
+            for (TextView field : draftFields) {
+                if (field.getId() == draft.fieldIds[i]) {
+                    field.setText(draft.fieldValues[i]);
+                }
+            }
+        }
+        for (Step.State state : draft.stepStates) {
+            Step step = findStep(state.stepViewId);
+            if (step != null) {
+                step.restoreState(state);
+                syncVisibilityWithActiveState(step);
+                syncStatus(step);
+            }
+        }
+        resetHistory();
+        requestLayout();
+    }
+
+    /**
+     * Set the summary for a given step.
+     *
+     * @param stepViewId the id of the step's view whose summary should be set.
+     * @param summary the summary to set for the step
+     */
+    public void setStepSummary(int stepViewId, @NonNull String summary) {
+        Step step = findStep(stepViewId);
+        if (step != null) {
+            step.setSummary(summary);
+            syncStatus(step);
+            invalidate();
+        }
+    }
+
+    /**
+     * Make the steps match {@code models}, in order. Steps are matched to models by {@link StepModel#getKey() key}, so
+     * only the steps that were added, removed, moved or changed are touched and the others keep their state. Steps
+     * that weren't created from a model are removed.
+     *
+     * @param models the steps to show.
+     * @throws IllegalArgumentException if two models have the same key.
+     */
+    public void setSteps(@NonNull List<StepModel> models) {
+        if (!stepsInitialized) {
+            pendingStepModels = new ArrayList<>(models);
+            return;
+        }
+        pendingStepModels = null;
+
+        Map<String, StepModel> modelsByKey = new HashMap<>(models.size() * 2);
+        for (StepModel model : models) {
+            if (modelsByKey.put(model.getKey(), model) != null) {
+                throw new IllegalArgumentException("Duplicate step key: " + model.getKey());
+            }
+        }
+
+        boolean changed = false;
+        Map<String, Step> stepsByKey = new HashMap<>(steps.size() * 2);
+        for (int i = steps.size() - 1; i >= 0; i--) {
+            Step step = steps.get(i);
+            StepModel model = step.getKey() != null ? modelsByKey.get(step.getKey()) : null;
+            if (model == null || model.getView() != step.getInnerView()) {
+                removeStepAt(i);
+                changed = true;
+            } else {
+                stepsByKey.put(step.getKey(), step);
+            }
+        }
+
+        boolean[] keepsPosition = findStepsThatKeepTheirPosition(models, stepsByKey);
+        // Every step is placed right after the previous model's step. The steps that keep their position are
+        // already in order so only the others are moved, which is the fewest moves possible.
+        Step previous = null;
+        for (int i = 0, size = models.size(); i < size; i++) {
+            StepModel model = models.get(i);
+            Step step = stepsByKey.get(model.getKey());
+            int targetIndex = previous != null ? previous.getIndex() + 1 : 0;
+            if (step == null) {
+                View view = model.getView();
+                if (!(view.getLayoutParams() instanceof LayoutParams)) {
+                    ViewGroup.LayoutParams lp = view.getLayoutParams();
+                    view.setLayoutParams(lp != null ? generateLayoutParams(lp) : generateDefaultLayoutParams());
+                }
+                step = insertStep(view, targetIndex);
+                step.setKey(model.getKey());
+                applyStepModel(step, model);
+                changed = true;
+            } else {
+                if (!keepsPosition[i]) {
+                    int index = step.getIndex();
+                    // Removing the step first shifts the previous step down when it comes after it.
+                    moveStep(index, index < targetIndex ? targetIndex - 1 : targetIndex);
+                    changed = true;
+                }
+                changed |= applyStepModel(step, model);
+            }
+            previous = step;
+        }
+
+        if (changed) {
+            resetHistory();
+            scheduleDraftWrite();
+            requestLayout();
+        }
+    }
+
+    /**
+     * Finds the longest run of existing steps whose current order already matches {@code models}, i.e. the longest
+     * increasing subsequence of their current indices.
+     *
+     * @return whether the step of each model keeps its position relative to the others.
+     */
+    @VisibleForTesting
+    static boolean[] findStepsThatKeepTheirPosition(List<StepModel> models, Map<String, Step> stepsByKey) {
+        int size = models.size();
+        boolean[] keepsPosition = new boolean[size];
+        // tails[k] is the model whose step ends the best increasing run of length k + 1 found so far.
+        int[] tails = new int[size];
+        int[] previous = new int[size];
+        int[] indices = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            Step step = stepsByKey.get(models.get(i).getKey());
+            if (step == null) {
+                continue;
+            }
+            int index = step.getIndex();
+            indices[i] = index;
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (indices[tails[mid]] < index) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            keepsPosition[i] = true;
+        }
+        return keepsPosition;
+    }
+
+    /**
+     * @return whether anything changed.
+     */
+    private boolean applyStepModel(Step step, StepModel model) {
+        boolean changed = false;
+        if (!model.getTitle().equals(step.getTitle())) {
+            step.setTitle(model.getTitle());
+            changed = true;
+        }
+        if (!TextUtils.equals(model.getSummary(), step.getSummary())) {
+            step.setSummary(model.getSummary());
+            changed = true;
+        }
+        if (model.isOptional() != step.isOptional()) {
+            step.setOptional(model.isOptional());
+            syncStatus(step);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Show {@code state} in this stepper, e.g. when a RecyclerView binds a recycled row. The existing steps and
+     * their views are reused, so this doesn't allocate when the number of steps matches. Otherwise steps with empty
+     * views are added or removed at the end.
+     * <p>
+     * The steps are built immediately if they don't exist yet so that the stepper can be measured before it's
+     * attached, e.g. during RecyclerView prefetch.
+     * <p>
+     * The bound state belongs to the caller so it isn't written as a draft. If an {@link #setUndoHistorySize(int)
+     * undo history} is kept, it restarts from the bound state, which allocates a snapshot of the steps.
+     *
+     * @param state the state to show.
+     */
+    public void bind(@NonNull StepperState state) {
+        ensureStepsInitialized();
+        beginBatchUpdate();
+        int stepCount = state.getStepCount();
+        while (steps.size() > stepCount) {
+            removeStepAt(steps.size() - 1);
+        }
+        while (steps.size() < stepCount) {
+            View placeholder = new View(context);
+            placeholder.setLayoutParams(generateDefaultLayoutParams());
+            insertStep(placeholder, steps.size());
+        }
+        for (int i = 0; i < stepCount; i++) {
+            Step step = steps.get(i);
+            boolean wasActive = step.isActive();
+            step.bind(state.getTitle(i), state.getSummary(i), state.isActive(i), state.isComplete(i),
+                    state.getError(i));
+            if (step.isActive() != wasActive) {
+                syncVisibilityWithActiveState(step);
+            }
+            controller.restoreState(i, step.isActive(), step.isComplete(), step.hasError());
+            controller.setOptional(i, step.isOptional());
+            statusIndex.update(i, step.isActive(), step.isComplete(), step.hasError(), step.isOptional());
+        }
+        resetHistory();
+        requestLayout();
+        endBatchUpdate();
+    }
+
+    /**
+     * Add a step after the existing steps.
+     *
+     * @param stepView the step's view. See {@link #addStep(View, int)}.
+     */
+    public void addStep(@NonNull View stepView) {
+        addStep(stepView, stepsInitialized ? steps.size() : getChildCount());
+    }
+
+    /**
+     * Add a step at {@code index}. Only the new step is set up, the existing steps keep their state.
+     * <p>
+     * The step's view needs {@link LayoutParams} with a step title, e.g. by inflating it with the stepper as the
+     * parent without attaching it.
+     *
+     * @param stepView the step's view.
+     * @param index the position of the new step.
+     * @throws IllegalArgumentException if the view doesn't have {@link LayoutParams}.
+     * @throws IndexOutOfBoundsException if {@code index} is past the last step.
+     */
+    public void addStep(@NonNull View stepView, int index) {
+        if (!(stepView.getLayoutParams() instanceof LayoutParams)) {
+            throw new IllegalArgumentException("The step's view must have VerticalStepper.LayoutParams.");
+        }
+        if (!stepsInitialized) {
+            addView(stepView, index);
+            return;
+        }
+        if (index < 0 || index > steps.size()) {
+            throw new IndexOutOfBoundsException("Can't add a step at index " + index + ".");
+        }
+        insertStep(stepView, index);
+        resetHistory();
+        requestLayout();
+    }
+
+    private Step insertStep(View stepView, int index) {
+        invalidateHistory();
+        addView(stepView);
+        Step step = createStep(stepView, findSavedStepState(stepView));
+        steps.add(index, step);
+        updateStepIndices(index, steps.size());
+        if (stepView.getId() != View.NO_ID) {
+            stepsById.put(stepView.getId(), step);
+        }
+        statusIndex.insert(index);
+        controller.insertStep(index);
+
+        initTouchView(step);
+        initNavButtons(step);
+        syncVisibilityWithActiveState(step);
+        syncStatus(step);
+        return step;
+    }
+
+    /**
+     * Finds the state saved for a step that's inserted before the saved state is applied, e.g. from models set before
+     * the stepper was attached. Only steps whose view has an id can be matched since their position isn't known yet.
+     */
+    @Nullable
+    private Step.State findSavedStepState(View stepView) {
+        int id = stepView.getId();
+        return savedState != null && id != View.NO_ID ? savedState.findStepState(id, 0) : null;
+    }
+
+    /**
+     * Remove a step along with the views the stepper created for it.
+     *
+     * @param stepView the step's view.
+     */
+    public void removeStep(@NonNull View stepView) {
+        if (!stepsInitialized) {
+            removeView(stepView);
+            return;
+        }
+        int index = indexOfStep(stepView);
+        if (index < 0) {
+            return;
+        }
+        removeStepAt(index);
+        resetHistory();
+        scheduleDraftWrite();
+        requestLayout();
+    }
+
+    private void removeStepAt(int index) {
+        invalidateHistory();
+        Step step = steps.remove(index);
+        updateStepIndices(index, steps.size());
+        View stepView = step.getInnerView();
+        if (stepView.getId() != View.NO_ID) {
+            stepsById.remove(stepView.getId());
+        }
+        statusIndex.remove(index);
+        controller.removeStep(index);
+
+        removeView(stepView);
+        removeView(step.getTouchView());
+        removeView(step.getContinueButton());
+    }
+
+    private void moveStep(int fromIndex, int toIndex) {
+        invalidateHistory();
+        Step step = steps.remove(fromIndex);
+        steps.add(toIndex, step);
+        updateStepIndices(Math.min(fromIndex, toIndex), Math.max(fromIndex, toIndex) + 1);
+        statusIndex.remove(fromIndex);
+        statusIndex.insert(toIndex);
+        controller.removeStep(fromIndex);
+        controller.insertStep(toIndex);
+        syncStatus(step);
+    }
+
+    private int indexOfStep(View stepView) {
+        Step step = findStep(stepView.getId());
+        if (step != null && step.getInnerView() == stepView) {
+            return step.getIndex();
+        }
+        for (int i = 0, size = steps.size(); i < size; i++) {
+            if (steps.get(i).getInnerView() == stepView) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void updateStepIndices(int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            steps.get(i).setIndex(i);
+        }
+    }
+
+    /**
+     * Keep a history of the step states so that the user's transitions can be undone. A transition is expanding or
+     * collapsing a step, attempting to complete a step or {@link #goToStep(int) going to a step}. Adding, removing or
+     * reordering steps clears the history.
+     *
+     * @param maxTransitions how many transitions can be undone or 0 to stop keeping a history.
+     */
+    public void setUndoHistorySize(int maxTransitions) {
+        if (maxTransitions <= 0) {
+            history = null;
+            return;
+        }
+        history = new StepStateHistory(maxTransitions);
+        historyStale = true;
+        if (stepsInitialized) {
+            resetHistory();
+        }
+    }
+
+    public boolean canUndo() {
+        return history != null && !historyStale && history.canUndo();
+    }
+
+    public boolean canRedo() {
+        return history != null && !historyStale && history.canRedo();
+    }
+
+    /**
+     * Restore the step states from before the last transition, in a single layout pass.
+     *
+     * @return whether there was anything to undo.
+     */
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+        //noinspection ConstantConditions
+        StepStateTree from = history.getWorking();
+        applyHistory(from, history.undo());
+        return true;
+    }
+
+    /**
+     * Reapply the last transition that was undone.
+     *
+     * @return whether there was anything to redo.
+     */
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
+        //noinspection ConstantConditions
+        StepStateTree from = history.getWorking();
+        applyHistory(from, history.redo());
+        return true;
+    }
+
+    private void applyHistory(StepStateTree from, StepStateTree to) {
+        from.diff(to, historyVisitor);
+        requestLayout();
+    }
+
+    private void recordHistory(Step step) {
+        if (history != null && !historyStale) {
+            history.record(step.getIndex(), step.generateState());
+        }
+    }
+
+    private void commitHistory() {
+        if (history == null) {
+            return;
+        }
+        if (historyStale) {
+            resetHistory();
+        } else {
+            history.commit();
+        }
+    }
+
+    /**
+     * Stops recording until the history is reset. Used while steps are added, removed or moved since the recorded
+     * positions would no longer match.
+     */
+    private void invalidateHistory() {
+        historyStale = true;
+    }
+
+    private void resetHistory() {
+        if (history != null) {
+            history.reset(StepStateTree.of(generateStepStates()));
+            historyStale = false;
+        }
+    }
+
+    /**
+     * Start a batch of updates. Until the matching {@link #endBatchUpdate()}, changes such as setting summaries,
+     * errors or completing steps won't relayout or redraw the stepper. Batches can be nested.
+     */
+    public void beginBatchUpdate() {
+        batchDepth++;
+    }
+
+    /**
+     * End a batch of updates. When the outermost batch ends, the stepper is laid out and redrawn at most once for all
+     * of the changes made during the batch.
+     *
+     * @throws IllegalStateException if no batch was started.
+     */
+    public void endBatchUpdate() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("endBatchUpdate() called without beginBatchUpdate().");
+        }
+        batchDepth--;
+        if (batchDepth > 0) {
+            return;
+        }
+        if (layoutRequestedInBatch) {
+            layoutRequestedInBatch = false;
+            super.requestLayout();
+        }
+        if (invalidateRequestedInBatch) {
+            invalidateRequestedInBatch = false;
+            super.invalidate();
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        if (batchDepth > 0) {
+            layoutRequestedInBatch = true;
+            return;
+        }
+        super.requestLayout();
+    }
+
+    @Override
+    public void invalidate() {
+        if (batchDepth > 0) {
+            invalidateRequestedInBatch = true;
+            return;
+        }
+        super.invalidate();
+    }
+
+    @Nullable
+    private Step findStep(int stepViewId) {
+        return stepsById.get(stepViewId);
+    }
+
+    /**
+     * @param stepViewId the id of the step's view.
+     * @return the position of the step or -1 if there's no step with that id.
+     */
+    public int getStepIndex(int stepViewId) {
+        Step step = findStep(stepViewId);
+        return step != null ? step.getIndex() : -1;
+    }
+
+    /**
+     * Expand the step at {@code index} and collapse all other steps, just like when the user taps on the step.
+     *
+     * @param index the position of the step.
+     * @throws IndexOutOfBoundsException if there's no step at {@code index}.
+     */
+    public void goToStep(int index) {
+        if (index < 0 || index >= steps.size()) {
+            throw new IndexOutOfBoundsException("No step at index " + index + ".");
+        }
+        controller.goToStep(index);
+        commitHistory();
+    }
+
+    /**
+     * Declare that a step's validity depends on the content of another step. Whenever the other step changes,
+     * the dependent step (and anything that depends on it in turn) is marked as needing revalidation.
+     *
+     * @param stepViewId the id of the dependent step's view.
+     * @param dependsOnStepViewId the id of the view of the step it depends on.
+     *
+     * @see #notifyStepChanged(int)
+     * @see #revalidateSteps()
+     */
+    public void addStepDependency(int stepViewId, int dependsOnStepViewId) {
+        dependencyGraph.addDependency(stepViewId, dependsOnStepViewId);
+    }
+
+    /**
+     * Removes a dependency added with {@link #addStepDependency(int, int)}.
+     *
+     * @param stepViewId the id of the dependent step's view.
+     * @param dependsOnStepViewId the id of the view of the step it depends on.
+     */
+    public void removeStepDependency(int stepViewId, int dependsOnStepViewId) {
+        dependencyGraph.removeDependency(stepViewId, dependsOnStepViewId);
+    }
+
+    /**
+     * Notify the stepper that the content of a step has changed outside of it being completed. This marks the steps
+     * that depend on it as needing revalidation. Completing a step does this automatically.
+     *
+     * @param stepViewId the id of the view of the step that changed.
+     */
+    public void notifyStepChanged(int stepViewId) {
+        dependencyGraph.walkDependents(stepViewId, markForRevalidationVisitor);
+    }
+
+    /**
+     * Runs validation for the steps marked as needing revalidation that have already been validated once. Steps
+     * the user hasn't reached yet are left to be validated when they're completed.
+     */
+    public void revalidateSteps() {
+        revalidateMarkedSteps();
+    }
 
-        commonStepValues = new Step.Common(context, iconActiveColor, iconInactiveColor, iconCompleteColor);
-        steps = new ArrayList<>();
+    /**
+     * @return the number of steps.
+     */
+    public int getStepCount() {
+        return steps.size();
     }
 
-    @VisibleForTesting
-    void initPropertiesFromAttrs(@Nullable AttributeSet attrs, int defStyleAttr, int defStyleRes) {
-        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.VerticalStepper,
-                    defStyleAttr, defStyleRes);
-        try {
-            initIconPropertiesFromAttrs(a);
-            initNavButtonPropertiesFromAttrs(a);
-        } finally {
-            a.recycle();
-        }
+    /**
+     * @return the number of complete steps.
+     */
+    public int getCompletedCount() {
+        return statusIndex.getCompleteCount();
     }
 
-    private void initIconPropertiesFromAttrs(TypedArray a) {
-        int defaultActiveColor =
-                ThemeUtils.getResolvedAttributeData(context.getTheme(), R.attr.colorPrimary, R.color.bg_active_icon);
-        iconActiveColor = a.getColor(R.styleable.VerticalStepper_iconColorActive,
-                ResourcesCompat.getColor(resources, defaultActiveColor, context.getTheme()));
-        iconInactiveColor = a.getColor(R.styleable.VerticalStepper_iconColorInactive,
-                ResourcesCompat.getColor(resources, R.color.bg_inactive_icon, context.getTheme()));
-        iconCompleteColor = a.getColor(R.styleable.VerticalStepper_iconColorComplete,
-                iconActiveColor);
+    /**
+     * @return the number of steps that currently show an error.
+     */
+    public int getErrorCount() {
+        return statusIndex.getErrorCount();
     }
 
-    @SuppressLint("PrivateResource") // https://code.google.com/p/android/issues/detail?id=230985
-    private void initNavButtonPropertiesFromAttrs(TypedArray a) {
-        continueButtonStyle = a.getResourceId(
-                R.styleable.VerticalStepper_continueButtonStyle, R.style.Widget_AppCompat_Button_Colored);
+    /**
+     * @return the number of optional steps.
+     */
+    public int getOptionalCount() {
+        return statusIndex.getOptionalCount();
     }
 
-    private void initPadding() {
-        outerHorizontalPadding = resources.getDimensionPixelSize(R.dimen.outer_padding_horizontal);
-        outerVerticalPadding = resources.getDimensionPixelSize(R.dimen.outer_padding_vertical);
+    /**
+     * @return the index of the most recently expanded step that's still expanded or -1 if all steps are collapsed.
+     */
+    public int getActiveStepIndex() {
+        return statusIndex.getActiveIndex();
     }
 
     /**
-     * Set a validator that can indicate a step has an invalid state when the user attempts to move to the next step.
-     *
-     * @param validator the validator
+     * @return the index of the first step with an error or -1 if there are no errors.
      */
-    public void setStepValidator(@NonNull StepValidator validator) {
-        this.validator = validator;
+    public int getFirstErrorIndex() {
+        return statusIndex.getFirstErrorIndex();
     }
 
     /**
-     * Removes the validator
+     * Revalidates the marked steps that have been validated before. Marked steps that haven't are kept for later.
      */
-    public void removeStepValidator() {
-        this.validator = alwaysValidValidator;
+    private void revalidateMarkedSteps() {
+        boolean changed = false;
+        int kept = 0;
+        for (int i = 0, count = markedStepIds.size(); i < count; i++) {
+            int stepViewId = markedStepIds.get(i);
+            Step step = findStep(stepViewId);
+            if (step == null || !step.needsRevalidation()) {
+                continue;
+            }
+            if (step.isValidated()) {
+                step.setNeedsRevalidation(false);
+                controller.revalidateStep(step.getIndex());
+                changed = true;
+            } else {
+                markedStepIds.set(kept++, stepViewId);
+            }
+        }
+        markedStepIds.truncate(kept);
+        if (changed) {
+            requestLayout();
+        }
     }
 
     /**
-     * Set the summary for a given step.
+     * Set declarative validation rules for a given step. The rules are checked before the {@link StepValidator}, which
+     * is only called if all the rules pass. These replace any rules declared with the {@code step_validation_*}
+     * attributes.
      *
-     * @param stepViewId the id of the step's view whose summary should be set.
-     * @param summary the summary to set for the step
+     * @param stepViewId the id of the step's view whose rules should be set.
+     * @param rules the rules to set for the step or null to remove them.
      */
-    public void setStepSummary(int stepViewId, @NonNull String summary) {
-        for (Step s : steps) {
-            if (s.getInnerView().getId() == stepViewId) {
-                s.setSummary(summary);
-                invalidate();
+    public void setStepRules(int stepViewId, @Nullable StepRules rules) {
+        for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+            View child = getChildAt(i);
+            if (child.getId() == stepViewId) {
+                ((LayoutParams) child.getLayoutParams()).setRules(rules);
                 break;
             }
         }
@@ -170,12 +1083,137 @@ public class VerticalStepper extends ViewGroup {
     @Override
     protected Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
+        lastSavedState = new SavedState(superState, generateStepStates());
+        return lastSavedState;
+    }
 
+    private List<Step.State> generateStepStates() {
         List<Step.State> stepStates = new ArrayList<>(steps.size());
         for (Step step : steps) {
             stepStates.add(step.generateState());
         }
-        return new SavedState(superState, stepStates);
+        return stepStates;
+    }
+
+    /**
+     * Measures the step states that {@link #onSaveInstanceState()} would currently write. Useful for monitoring how
+     * close large steppers get to the binder transaction limit.
+     *
+     * @return the size of the encoded step states in bytes.
+     */
+    public int computeSavedStateSize() {
+        Parcel parcel = Parcel.obtain();
+        try {
+            SavedState.writeStepStates(parcel, generateStepStates());
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Writes the stepper's internal state for debugging: a summary, its caches, pending work, the saved state size
+     * and a line per step with its flags and cached heights. The step flags are A(ctive), C(omplete), E(rror),
+     * O(ptional) and R(evalidate), or '-' when unset.
+     * <p>
+     * The lines are built in a reused buffer so dumping doesn't allocate. The saved state size is the one written at
+     * the last save rather than {@link #computeSavedStateSize()}, which encodes the steps again. Call it on the main
+     * thread.
+     *
+     * @param writer where to write the state. It's flushed but not closed.
+     */
+    public void dump(@NonNull PrintWriter writer) {
+        StringBuilder line = dumpLine;
+        line.setLength(0);
+        line.append("VerticalStepper: steps=").append(steps.size())
+                .append(" children=").append(getChildCount())
+                .append(" activeIndex=").append(getActiveStepIndex())
+                .append(" active=").append(statusIndex.getActiveCount())
+                .append(" complete=").append(statusIndex.getCompleteCount())
+                .append(" error=").append(statusIndex.getErrorCount())
+                .append(" optional=").append(statusIndex.getOptionalCount());
+        writeDumpLine(writer);
+
+        line.setLength(0);
+        line.append("caches: stepsById=").append(stepsById.size())
+                .append(" stepNumbers=").append(countNonNull(stepNumberStrings)).append('/')
+                .append(stepNumberStrings.length)
+                .append(" resolvedStrings=").append(commonStepValues.getResolvedStringCount())
+                .append(" internedErrors=").append(ValidationResult.getInternedErrorCount()).append('/')
+                .append(ValidationResult.MAX_INTERNED_RESULTS)
+                .append(" internedErrorRes=").append(ValidationResult.getInternedErrorResCount()).append('/')
+                .append(ValidationResult.MAX_INTERNED_RESULTS);
+        writeDumpLine(writer);
+
+        line.setLength(0);
+        line.append("pending: draftWrite=").append(draftWriteScheduled)
+                .append(" draftToApply=").append(loadedDraft != null)
+                .append(" stepModels=").append(pendingStepModels != null)
+                .append(" transition=").append(transitionMetrics.isInTransition())
+                .append(" history=").append(history != null ? history.getVersionCount() : 0)
+                .append(historyStale ? " (stale)" : "");
+        writeDumpLine(writer);
+
+        line.setLength(0);
+        int savedStateSize = lastSavedState != null ? lastSavedState.getStepStatesSize() : SavedState.NOT_WRITTEN;
+        line.append("savedState: ");
+        if (savedStateSize == SavedState.NOT_WRITTEN) {
+            line.append("not written");
+        } else {
+            line.append(savedStateSize).append(" bytes at the last save");
+        }
+        writeDumpLine(writer);
+
+        for (int i = 0, size = steps.size(); i < size; i++) {
+            Step step = steps.get(i);
+            line.setLength(0);
+            line.append("step ").append(i).append(": id=");
+            appendHex(line, step.getInnerView().getId());
+            line.append(" flags=")
+                    .append(step.isActive() ? 'A' : '-')
+                    .append(step.isComplete() ? 'C' : '-')
+                    .append(step.hasError() ? 'E' : '-')
+                    .append(step.isOptional() ? 'O' : '-')
+                    .append(step.needsRevalidation() ? 'R' : '-')
+                    .append(" decorator=").append(step.getDecoratorHeight())
+                    .append(" bottomMargin=").append(step.getBottomMarginHeight())
+                    .append(" childrenVisible=").append(step.getChildrenVisibleHeight())
+                    .append(" textCache=").append(step.getTextCacheHits()).append('/')
+                    .append(step.getTextCacheHits() + step.getTextCacheMisses());
+            writeDumpLine(writer);
+        }
+        writer.flush();
+    }
+
+    private void writeDumpLine(PrintWriter writer) {
+        int length = dumpLine.length();
+        if (dumpChars.length < length) {
+            dumpChars = new char[Math.max(length, dumpChars.length * 2)];
+        }
+        dumpLine.getChars(0, length, dumpChars, 0);
+        writer.write(dumpChars, 0, length);
+        writer.println();
+    }
+
+    private static int countNonNull(Object[] array) {
+        int count = 0;
+        for (Object o : array) {
+            if (o != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void appendHex(StringBuilder builder, int value) {
+        builder.append("0x");
+        int shift = Integer.SIZE - 4;
+        while (shift > 0 && ((value >>> shift) & 0xf) == 0) {
+            shift -= 4;
+        }
+        for (; shift >= 0; shift -= 4) {
+            builder.append(Character.forDigit((value >>> shift) & 0xf, 16));
+        }
     }
 
     @Override
@@ -186,32 +1224,102 @@ public class VerticalStepper extends ViewGroup {
         }
 
         savedState = (SavedState) state;
+        restoredFromSavedState = true;
+        loadedDraft = null;
         super.onRestoreInstanceState(savedState.getSuperState());
     }
 
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
-        initSteps(savedState);
+        // The steps and their views outlive detaching, e.g. in a ViewPager, so they're only built the first time.
+        if (stepsInitialized && savedState != null) {
+            restoreStepStates(savedState);
+        }
+        ensureStepsInitialized();
+        savedState = null;
+        applyLoadedDraft();
+    }
+
+    private void ensureStepsInitialized() {
+        if (!stepsInitialized) {
+            initSteps(savedState);
+        }
+        // Models set before the steps existed replace the XML children before anything measures or binds them. The
+        // saved state is kept until then so that their steps are restored too.
+        if (pendingStepModels != null && stepsInitialized) {
+            setSteps(pendingStepModels);
+        }
         savedState = null;
     }
 
+    private void restoreStepStates(SavedState savedState) {
+        int stepsWithoutId = 0;
+        for (Step step : steps) {
+            int id = step.getInnerView().getId();
+            Step.State state = savedState.findStepState(id, id == View.NO_ID ? stepsWithoutId++ : 0);
+            if (state != null) {
+                step.restoreState(state);
+                syncVisibilityWithActiveState(step);
+                syncStatus(step);
+            }
+        }
+        resetHistory();
+        requestLayout();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // Only release what's tied to the window. Pending callbacks wouldn't run while detached.
+        if (draftWriteScheduled) {
+            removeCallbacks(saveDraftRunnable);
+            saveDraft();
+        }
+        super.onDetachedFromWindow();
+    }
+
     @VisibleForTesting
     void initSteps(@Nullable SavedState savedState) {
-        ContextThemeWrapper contextWrapper = new ContextThemeWrapper(context, continueButtonStyle);
-        int childCount = getChildCount();
-        for (int i = 0; i < childCount; i++) {
-            Step.State initialState = savedState != null ? savedState.stepStates.get(i) : null;
-            Step step = new Step(getChildAt(i), new InternalTouchView(context),
-                    new AppCompatButton(contextWrapper, null, 0), commonStepValues, initialState);
-            steps.add(step);
+        StepperTrace.beginSection("VerticalStepper.initSteps");
+        try {
+            int childCount = getChildCount();
+            int childrenWithoutId = 0;
+            for (int i = 0; i < childCount; i++) {
+                View child = getChildAt(i);
+                Step.State initialState = null;
+                if (savedState != null) {
+                    int id = child.getId();
+                    initialState = savedState.findStepState(id, id == View.NO_ID ? childrenWithoutId++ : 0);
+                }
+                Step step = createStep(child, initialState);
+                step.setIndex(steps.size());
+                steps.add(step);
+                if (child.getId() != View.NO_ID) {
+                    stepsById.put(child.getId(), step);
+                }
+            }
+            stepsInitialized = true;
+
+            statusIndex.setSize(steps.size());
+            controller.setStepCount(steps.size());
+            for (Step s : steps) {
+                initTouchView(s);
+                initNavButtons(s);
+                syncVisibilityWithActiveState(s);
+                syncStatus(s);
+            }
+            resetHistory();
+        } finally {
+            StepperTrace.endSection();
         }
+    }
 
-        for (Step s : steps) {
-            initTouchView(s);
-            initNavButtons(s);
-            syncVisibilityWithActiveState(s);
+    private Step createStep(View stepView, @Nullable Step.State initialState) {
+        if (continueButtonContext == null) {
+            continueButtonContext = new ContextThemeWrapper(context, continueButtonStyle);
         }
+        return new Step(stepView, new InternalTouchView(context),
+                new AppCompatButton(continueButtonContext, null, 0), commonStepValues, initialState);
     }
 
     @VisibleForTesting
@@ -221,8 +1329,9 @@ public class VerticalStepper extends ViewGroup {
         touchView.setOnClickListener(new OnClickListener() {
             @Override
             public void onClick(View v) {
-                collapseOtherSteps(step);
-                toggleStepExpandedState(step);
+                transitionMetrics.begin(StepperMetricsListener.TRANSITION_HEADER_TAP, step.getIndex());
+                controller.toggleStep(step.getIndex());
+                commitHistory();
             }
         });
         addView(touchView);
@@ -237,6 +1346,7 @@ public class VerticalStepper extends ViewGroup {
         continueButton.setOnClickListener(new OnClickListener() {
             @Override
             public void onClick(View v) {
+                transitionMetrics.begin(StepperMetricsListener.TRANSITION_CONTINUE, step.getIndex());
                 attemptStepCompletion(step);
             }
         });
@@ -245,46 +1355,99 @@ public class VerticalStepper extends ViewGroup {
 
     @VisibleForTesting
     void attemptStepCompletion(Step step) {
-        ValidationResult validation = validator.validate(step.getInnerView(), step.isOptional());
-        @ValidationResult.Result int result = validation.getResult();
-        if (result == ValidationResult.INVALID) {
-            step.setError(validation.getError());
-            requestLayout();
-        } else {
-            step.clearError();
-            if (result == ValidationResult.VALID_COMPLETE) {
-                step.markComplete();
-            }
-            toggleStepExpandedState(step);
-
-            int nextIndex = steps.indexOf(step) + 1;
-            if (nextIndex < steps.size()) {
-                toggleStepExpandedState(steps.get(nextIndex));
+        StepperTrace.beginSection("VerticalStepper.attemptStepCompletion", step.getIndex());
+        try {
+            step.setNeedsRevalidation(false);
+            int result = controller.attemptStepCompletion(step.getIndex());
+            if (result == ValidationResult.INVALID) {
+                requestLayout();
             } else {
-                // TODO this is the last step. Complete the form
-                // TODO Add listener for entire stepper validation
+                dependencyGraph.walkDependents(step.getInnerView().getId(), markForRevalidationVisitor);
+                revalidateMarkedSteps();
+                if (step.getIndex() == steps.size() - 1) {
+                    // TODO this is the last step. Complete the form
+                    // TODO Add listener for entire stepper validation
+                }
             }
+            commitHistory();
+        } finally {
+            StepperTrace.endSection();
         }
     }
 
-    @VisibleForTesting
-    void collapseOtherSteps(Step stepToExcludeFromCollapse) {
-        for (Step s : steps) {
-            if (s != stepToExcludeFromCollapse && s.isActive()) {
-                toggleStepExpandedState(s);
-            }
+    private void reportValidationTime(Step step, long durationNanos) {
+        transitionMetrics.addValidationTime(durationNanos);
+        debugOverlay.setValidationTime(step.getIndex(), durationNanos);
+        if (durationNanos > validationBudgetNanos) {
+            reportSlowValidation(step, durationNanos);
         }
     }
 
-    @VisibleForTesting
-    void toggleStepExpandedState(Step step) {
-        toggleActiveState(step);
-        syncVisibilityWithActiveState(step);
+    private void reportSlowValidation(Step step, long durationNanos) {
+        int stepIndex = step.getIndex();
+        int stepViewId = step.getInnerView().getId();
+        if (slowValidationListener != null) {
+            slowValidationListener.onSlowValidation(stepIndex, stepViewId, durationNanos);
+        }
+        if (strictValidationBudget) {
+            throw new IllegalStateException(String.format(Locale.US,
+                    "Validating step %d (view id 0x%x) took %dus, over the budget of %dus.", stepIndex, stepViewId,
+                    TimeUnit.NANOSECONDS.toMicros(durationNanos),
+                    TimeUnit.NANOSECONDS.toMicros(validationBudgetNanos)));
+        }
+    }
+
+    /**
+     * Mirrors a change made outside of the controller, e.g. restoring or binding a step, into it.
+     */
+    private void syncStatus(Step step) {
+        controller.restoreState(step.getIndex(), step.isActive(), step.isComplete(), step.hasError());
+        controller.setOptional(step.getIndex(), step.isOptional());
+        updateStatus(step);
+    }
+
+    private void updateStatus(Step step) {
+        statusIndex.update(step.getIndex(), step.isActive(), step.isComplete(), step.hasError(), step.isOptional());
+        recordHistory(step);
+        scheduleDraftWrite();
     }
 
     @VisibleForTesting
-    void toggleActiveState(Step step) {
-        step.setActive(!step.isActive());
+    void renderStepChange(Step step, int changes) {
+        StepperTrace.beginSection("VerticalStepper.renderStepChange", step.getIndex());
+        try {
+            int index = step.getIndex();
+            if ((changes & StepperController.CHANGED_ERROR) != 0) {
+                if (controller.hasError(index)) {
+                    setError(step, stepValidator.getLastResult());
+                } else {
+                    step.clearError();
+                }
+            }
+            if ((changes & StepperController.CHANGED_COMPLETE) != 0) {
+                if (controller.isComplete(index)) {
+                    step.markComplete();
+                } else {
+                    step.markIncomplete();
+                }
+            }
+            if ((changes & StepperController.CHANGED_ACTIVE) != 0) {
+                step.setActive(controller.isActive(index));
+                syncVisibilityWithActiveState(step);
+            }
+            updateStatus(step);
+        } finally {
+            StepperTrace.endSection();
+        }
+    }
+
+    private static void setError(Step step, ValidationResult validation) {
+        int errorRes = validation.getErrorRes();
+        if (errorRes != 0) {
+            step.setError(errorRes);
+        } else {
+            step.setError(validation.getError());
+        }
     }
 
     @VisibleForTesting
@@ -296,11 +1459,16 @@ public class VerticalStepper extends ViewGroup {
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // RecyclerView may measure prefetched rows before they're attached.
+        ensureStepsInitialized();
+        long start = transitionMetrics.startPhase();
         doMeasurement(widthMeasureSpec, heightMeasureSpec);
+        transitionMetrics.endMeasure(start);
     }
 
     @VisibleForTesting
     void doMeasurement(int widthMeasureSpec, int heightMeasureSpec) {
+        debugOverlay.startMeasurement();
         measureStepDecoratorHeights();
         measureStepBottomMarginHeights();
         measureActiveViews(widthMeasureSpec, heightMeasureSpec);
@@ -320,8 +1488,15 @@ public class VerticalStepper extends ViewGroup {
 
     @VisibleForTesting
     void measureStepDecoratorHeights() {
-        for (int i = 0, innerViewsSize = steps.size(); i < innerViewsSize; i++) {
-            steps.get(i).measureStepDecoratorHeight();
+        StepperTrace.beginSection("VerticalStepper.measureStepDecoratorHeights");
+        try {
+            for (int i = 0, innerViewsSize = steps.size(); i < innerViewsSize; i++) {
+                long start = debugOverlay.start();
+                steps.get(i).measureStepDecoratorHeight();
+                debugOverlay.endMeasure(i, start);
+            }
+        } finally {
+            StepperTrace.endSection();
         }
     }
 
@@ -334,33 +1509,44 @@ public class VerticalStepper extends ViewGroup {
 
     @VisibleForTesting
     void measureActiveViews(int widthMeasureSpec, int heightMeasureSpec) {
-        int currentHeight = calculateVerticalPadding();
-        for (int i = 0, innerViewsSize = steps.size(); i < innerViewsSize; i++) {
-            Step step = steps.get(i);
-            int activeViewsHeight = 0;
-
-            currentHeight += step.getDecoratorHeight();
-
-            View innerView = step.getInnerView();
-            measureActiveView(step, innerView, widthMeasureSpec, heightMeasureSpec, currentHeight);
-            int innerHeight = calculateActiveHeight(step, innerView);
-            activeViewsHeight += innerHeight;
-            currentHeight += innerHeight;
-
-            View continueButton = step.getContinueButton();
-            measureActiveView(step, continueButton, widthMeasureSpec, heightMeasureSpec, currentHeight);
-            int continueHeight = calculateActiveHeight(step, continueButton);
-            activeViewsHeight += continueHeight;
-            currentHeight += continueHeight;
-
-            step.setActiveViewsHeight(activeViewsHeight);
-
-            currentHeight += step.getBottomMarginHeight();
+        StepperTrace.beginSection("VerticalStepper.measureActiveViews");
+        try {
+            int currentHeight = calculateVerticalPadding();
+            for (int i = 0, innerViewsSize = steps.size(); i < innerViewsSize; i++) {
+                long start = debugOverlay.start();
+                Step step = steps.get(i);
+                int activeViewsHeight = 0;
+
+                currentHeight += step.getDecoratorHeight();
+
+                View innerView = step.getInnerView();
+                measureActiveView(step, innerView, widthMeasureSpec, heightMeasureSpec, currentHeight);
+                int innerHeight = calculateActiveHeight(step, innerView);
+                activeViewsHeight += innerHeight;
+                currentHeight += innerHeight;
+
+                View continueButton = step.getContinueButton();
+                measureActiveView(step, continueButton, widthMeasureSpec, heightMeasureSpec, currentHeight);
+                int continueHeight = calculateActiveHeight(step, continueButton);
+                activeViewsHeight += continueHeight;
+                currentHeight += continueHeight;
+
+                step.setActiveViewsHeight(activeViewsHeight);
+
+                currentHeight += step.getBottomMarginHeight();
+                debugOverlay.endMeasure(i, start);
+            }
+        } finally {
+            StepperTrace.endSection();
         }
     }
 
     @VisibleForTesting
     void measureActiveView(Step step, View activeView, int parentWms, int parentHms, int currentHeight) {
+        if (activeView.getVisibility() == GONE) {
+            // Like ViewGroup.measureChildren. A gone view is never laid out so it would be measured again every pass.
+            return;
+        }
         LayoutParams lp = (LayoutParams) activeView.getLayoutParams();
         int activeViewUsedWidth = calculateHorizontalPadding() + step.calculateHorizontalUsedSpace(activeView);
         int activeViewWms = nonStaticGetChildMeasureSpec(parentWms, activeViewUsedWidth, lp.width);
@@ -398,7 +1584,9 @@ public class VerticalStepper extends ViewGroup {
         for (int i = 0, innerViewsSize = steps.size(); i < innerViewsSize; i++) {
             Step step = steps.get(i);
 
+            long start = debugOverlay.start();
             width = Math.max(width, step.calculateStepDecoratorWidth());
+            debugOverlay.endMeasure(i, start);
 
             View innerView = step.getInnerView();
             int innerViewHorizontalPadding = step.calculateHorizontalUsedSpace(innerView);
@@ -413,19 +1601,41 @@ public class VerticalStepper extends ViewGroup {
 
     @VisibleForTesting
     int calculateHeight() {
-        int height = calculateVerticalPadding();
-        for (Step step : steps) {
-            height += step.getDecoratorHeight();
-            height += step.getChildrenVisibleHeight();
-            height += step.getBottomMarginHeight();
+        return calculateVerticalPadding() + computeStepLayout().getHeight();
+    }
+
+    /**
+     * Lays out the steps from what the last measure pass left on them. The metrics and layout are reused so this
+     * doesn't allocate unless there are more steps than before.
+     */
+    @VisibleForTesting
+    StepLayout computeStepLayout() {
+        int size = steps.size();
+        stepMetrics.setStepCount(size);
+        for (int i = 0; i < size; i++) {
+            Step step = steps.get(i);
+            boolean isActive = step.isActive();
+            stepMetrics.setActive(i, isActive);
+            stepMetrics.setDecorator(i, step.getDecoratorHeight(), step.calculateYDistanceToTextBottom());
+            int activeViewsHeight = isActive
+                    ? step.getInnerView().getMeasuredHeight() + step.getContinueButton().getMeasuredHeight() : 0;
+            stepMetrics.setActiveViewsHeight(i, activeViewsHeight, step.getChildrenVisibleHeight());
+            stepMetrics.setBottomMarginHeight(i, step.getBottomMarginHeight());
         }
-        return height;
+        StepLayoutEngine.compute(stepMetrics, stepLayout);
+        return stepLayout;
     }
 
     @VisibleForTesting
     void measureTouchViews(int width) {
-        for (Step s : steps) {
-            measureTouchView(width, s.getTouchViewHeight(), s.getTouchView());
+        StepperTrace.beginSection("VerticalStepper.measureTouchViews");
+        try {
+            for (int i = 0, size = steps.size(); i < size; i++) {
+                Step s = steps.get(i);
+                measureTouchView(width, s.getTouchViewHeight(), s.getTouchView());
+            }
+        } finally {
+            StepperTrace.endSection();
         }
     }
 
@@ -447,23 +1657,34 @@ public class VerticalStepper extends ViewGroup {
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-        if (steps.isEmpty()) {
-            return;
-        }
-        Rect rect = steps.get(0).getTempRectForLayout();
-        rect.set(getPaddingLeft() + outerHorizontalPadding,
-                getPaddingTop() + outerVerticalPadding,
-                right - left - getPaddingRight() - outerHorizontalPadding,
-                bottom - top - getPaddingBottom() - outerVerticalPadding);
-        for (int i = 0, innerViewsSize = steps.size(); i < innerViewsSize; i++) {
-            Step step = steps.get(i);
-
-            layoutTouchView(rect, step.getTouchView());
-
-            if (step.isActive()) {
-                layoutActiveViews(rect, step);
+        StepperTrace.beginSection("VerticalStepper.onLayout");
+        long start = transitionMetrics.startPhase();
+        try {
+            if (steps.isEmpty()) {
+                return;
             }
-            rect.top += step.calculateYDistanceToNextStep();
+            StepLayout layout = computeStepLayout();
+            Rect rect = steps.get(0).getTempRectForLayout();
+            int contentTop = getPaddingTop() + outerVerticalPadding;
+            rect.set(getPaddingLeft() + outerHorizontalPadding,
+                    contentTop,
+                    right - left - getPaddingRight() - outerHorizontalPadding,
+                    bottom - top - getPaddingBottom() - outerVerticalPadding);
+            for (int i = 0, innerViewsSize = steps.size(); i < innerViewsSize; i++) {
+                long stepStart = debugOverlay.start();
+                Step step = steps.get(i);
+                rect.top = contentTop + layout.getTop(i);
+
+                layoutTouchView(rect, step.getTouchView());
+
+                if (step.isActive()) {
+                    layoutActiveViews(rect, step, layout.getYDistanceToTextBottom(i));
+                }
+                debugOverlay.endLayout(i, stepStart);
+            }
+        } finally {
+            transitionMetrics.endLayout(start);
+            StepperTrace.endSection();
         }
     }
 
@@ -483,12 +1704,12 @@ public class VerticalStepper extends ViewGroup {
     }
 
     @VisibleForTesting
-    void layoutActiveViews(Rect rect, Step step) {
+    void layoutActiveViews(Rect rect, Step step, int yDistanceToTextBottom) {
         int originalLeft = rect.left;
         int originalTop = rect.top;
 
         rect.left += step.calculateStepDecoratorIconWidth();
-        rect.top += step.calculateYDistanceToTextBottom();
+        rect.top += yDistanceToTextBottom;
 
         layoutInnerView(rect, step);
 
@@ -528,37 +1749,62 @@ public class VerticalStepper extends ViewGroup {
 
     @Override
     protected void onDraw(Canvas canvas) {
+        long start = transitionMetrics.startPhase();
         doDraw(canvas);
+        transitionMetrics.endDraw(start);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (debugOverlay.isEnabled()) {
+            drawDebugOverlay(canvas);
+        }
     }
 
     @VisibleForTesting
-    void doDraw(Canvas canvas) {
-        canvas.save();
-        canvas.translate(outerHorizontalPadding + getPaddingLeft(), outerVerticalPadding + getPaddingTop());
-        int dyToNextStep = 0;
-        for (int i = 0, innerViewsSize = steps.size(); i < innerViewsSize; i++) {
-            canvas.translate(0, dyToNextStep);
+    void drawDebugOverlay(Canvas canvas) {
+        debugOverlay.draw(canvas, steps, getPaddingTop() + outerVerticalPadding,
+                getWidth() - getPaddingRight() - outerHorizontalPadding,
+                getHeight() - getPaddingBottom() - outerVerticalPadding, getChildCount());
+    }
 
+    @VisibleForTesting
+    void doDraw(Canvas canvas) {
+        StepperTrace.beginSection("VerticalStepper.doDraw");
+        try {
+            StepLayout layout = computeStepLayout();
             canvas.save();
+            canvas.translate(outerHorizontalPadding + getPaddingLeft(), outerVerticalPadding + getPaddingTop());
+            int dyToNextStep = 0;
+            for (int i = 0, innerViewsSize = steps.size(); i < innerViewsSize; i++) {
+                canvas.translate(0, dyToNextStep);
 
-            int stepNumber = i + 1;
-            Step step = steps.get(i);
+                long start = debugOverlay.start();
+                canvas.save();
 
-            drawIcon(canvas, step, stepNumber);
+                int stepNumber = i + 1;
+                Step step = steps.get(i);
 
-            drawText(canvas, step);
+                drawIcon(canvas, step, stepNumber);
 
-            boolean hasMoreSteps = stepNumber < innerViewsSize;
-            if (hasMoreSteps) {
-                dyToNextStep = step.calculateYDistanceToNextStep();
+                drawText(canvas, step);
 
-                drawConnector(canvas, step, dyToNextStep);
-            }
+                boolean hasMoreSteps = stepNumber < innerViewsSize;
+                if (hasMoreSteps) {
+                    dyToNextStep = layout.getYDistanceToNextStep(i);
+
+                    drawConnector(canvas, step, dyToNextStep);
+                }
 
+                canvas.restore();
+                debugOverlay.endDraw(i, start);
+            }
+            canvas.translate(outerHorizontalPadding + getPaddingRight(), outerVerticalPadding + getPaddingBottom());
             canvas.restore();
+        } finally {
+            StepperTrace.endSection();
         }
-        canvas.translate(outerHorizontalPadding + getPaddingRight(), outerVerticalPadding + getPaddingBottom());
-        canvas.restore();
     }
 
     @VisibleForTesting
@@ -587,7 +1833,7 @@ public class VerticalStepper extends ViewGroup {
 
     @VisibleForTesting
     void drawIconText(Canvas canvas, Step step, int stepNumber) {
-        String stepNumberString = String.format(Locale.getDefault(), "%d", stepNumber);
+        String stepNumberString = getStepNumberString(stepNumber);
         TextPaint iconTextPaint = step.getIconTextPaint();
         int iconDimension = step.getIconDimension();
 
@@ -598,6 +1844,23 @@ public class VerticalStepper extends ViewGroup {
         canvas.drawText(stepNumberString, center.x, center.y, iconTextPaint);
     }
 
+    private String getStepNumberString(int stepNumber) {
+        Locale locale = Locale.getDefault();
+        if (!locale.equals(stepNumberLocale)) {
+            stepNumberLocale = locale;
+            stepNumberStrings = new String[stepNumberStrings.length];
+        }
+        if (stepNumber >= stepNumberStrings.length) {
+            stepNumberStrings = Arrays.copyOf(stepNumberStrings, Math.max(stepNumber + 1, steps.size() + 1));
+        }
+        String stepNumberString = stepNumberStrings[stepNumber];
+        if (stepNumberString == null) {
+            stepNumberString = String.format(locale, "%d", stepNumber);
+            stepNumberStrings[stepNumber] = stepNumberString;
+        }
+        return stepNumberString;
+    }
+
     @VisibleForTesting
     void drawText(Canvas canvas, Step step) {
         canvas.save();
@@ -665,6 +1928,7 @@ public class VerticalStepper extends ViewGroup {
         private String title;
         private String summary;
         private boolean isOptional;
+        private StepRules rules;
 
         LayoutParams(Context c, AttributeSet attrs) {
             super(c, attrs);
@@ -675,6 +1939,7 @@ public class VerticalStepper extends ViewGroup {
                 title = a.getString(R.styleable.VerticalStepper_Layout_step_title);
                 summary = a.getString(R.styleable.VerticalStepper_Layout_step_summary);
                 isOptional = a.getBoolean(R.styleable.VerticalStepper_Layout_step_optional, false);
+                rules = createRulesFromAttrs(c, a);
             } finally {
                 a.recycle();
             }
@@ -683,6 +1948,47 @@ public class VerticalStepper extends ViewGroup {
             }
         }
 
+        @Nullable
+        private static StepRules createRulesFromAttrs(Context c, TypedArray a) {
+            int fieldId = a.getResourceId(R.styleable.VerticalStepper_Layout_step_validation_field, View.NO_ID);
+            if (fieldId == View.NO_ID) {
+                return null;
+            }
+            String error = a.getString(R.styleable.VerticalStepper_Layout_step_validation_error);
+            StepRules.Builder builder = new StepRules.Builder();
+            if (a.getBoolean(R.styleable.VerticalStepper_Layout_step_validation_required, false)) {
+                builder.required(fieldId, getError(c, error, R.string.validation_error_required));
+            }
+            if (a.hasValue(R.styleable.VerticalStepper_Layout_step_validation_min_length)) {
+                builder.minLength(fieldId, a.getInt(R.styleable.VerticalStepper_Layout_step_validation_min_length, 0),
+                        getError(c, error, R.string.validation_error_too_short));
+            }
+            if (a.hasValue(R.styleable.VerticalStepper_Layout_step_validation_max_length)) {
+                builder.maxLength(fieldId,
+                        a.getInt(R.styleable.VerticalStepper_Layout_step_validation_max_length, Integer.MAX_VALUE),
+                        getError(c, error, R.string.validation_error_too_long));
+            }
+            String pattern = a.getString(R.styleable.VerticalStepper_Layout_step_validation_pattern);
+            if (pattern != null) {
+                builder.matches(fieldId, pattern, getError(c, error, R.string.validation_error_pattern));
+            }
+            boolean hasMinValue = a.hasValue(R.styleable.VerticalStepper_Layout_step_validation_min_value);
+            boolean hasMaxValue = a.hasValue(R.styleable.VerticalStepper_Layout_step_validation_max_value);
+            if (hasMinValue || hasMaxValue) {
+                builder.range(fieldId,
+                        a.getFloat(R.styleable.VerticalStepper_Layout_step_validation_min_value,
+                                Float.NEGATIVE_INFINITY),
+                        a.getFloat(R.styleable.VerticalStepper_Layout_step_validation_max_value,
+                                Float.POSITIVE_INFINITY),
+                        getError(c, error, R.string.validation_error_range));
+            }
+            return builder.build();
+        }
+
+        private static String getError(Context c, @Nullable String error, int defaultErrorRes) {
+            return TextUtils.isEmpty(error) ? c.getString(defaultErrorRes) : error;
+        }
+
         LayoutParams(int width, int height) {
             super(width, height);
             title = EMPTY_TITLE;
@@ -704,6 +2010,15 @@ public class VerticalStepper extends ViewGroup {
         boolean isOptional() {
             return isOptional;
         }
+
+        @Nullable
+        StepRules getRules() {
+            return rules;
+        }
+
+        void setRules(@Nullable StepRules rules) {
+            this.rules = rules;
+        }
     }
 
     @VisibleForTesting
@@ -713,13 +2028,6 @@ public class VerticalStepper extends ViewGroup {
         }
     }
 
-    private static class AlwaysValidValidator implements StepValidator {
-        @Override
-        public ValidationResult validate(View v, boolean isOptional) {
-            return ValidationResult.VALID_COMPLETE_RESULT;
-        }
-    }
-
     static class SavedState extends AbsSavedState {
         public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
             public SavedState createFromParcel(Parcel in) {
@@ -731,8 +2039,14 @@ public class VerticalStepper extends ViewGroup {
             }
         };
 
+        private static final int NO_STRING = -1;
+        static final int NOT_WRITTEN = -1;
+
         @VisibleForTesting
         List<Step.State> stepStates;
+        private SparseArray<Step.State> statesById;
+        private List<Step.State> statesWithoutId;
+        private int stepStatesSize = NOT_WRITTEN;
 
         SavedState(Parcelable superState, List<Step.State> stepStates) {
             super(superState);
@@ -745,14 +2059,167 @@ public class VerticalStepper extends ViewGroup {
 
         SavedState(Parcel source, ClassLoader loader) {
             super(source, loader);
-            stepStates = new ArrayList<>();
-            source.readTypedList(stepStates, Step.State.CREATOR);
+            stepStates = readStepStates(source);
         }
 
         @Override
         public void writeToParcel(Parcel dest, int flags) {
             super.writeToParcel(dest, flags);
-            dest.writeTypedList(stepStates);
+            int start = dest.dataPosition();
+            writeStepStates(dest, stepStates);
+            stepStatesSize = dest.dataPosition() - start;
+        }
+
+        /**
+         * @return the size of the step states the last time this was written to a parcel or {@link #NOT_WRITTEN}.
+         */
+        int getStepStatesSize() {
+            return stepStatesSize;
+        }
+
+        /**
+         * Finds the state saved for a step by its view id. States of steps without an id are matched by their
+         * position among the other steps without an id.
+         *
+         * @param stepViewId the id of the step's view or {@link View#NO_ID}.
+         * @param positionWithoutId the step's position among the steps without an id. Only used if the step has no id.
+         * @return the saved state or null if there isn't one.
+         */
+        @Nullable
+        Step.State findStepState(int stepViewId, int positionWithoutId) {
+            if (statesById == null) {
+                indexStepStates();
+            }
+            if (stepViewId != View.NO_ID) {
+                return statesById.get(stepViewId);
+            }
+            return positionWithoutId < statesWithoutId.size() ? statesWithoutId.get(positionWithoutId) : null;
+        }
+
+        private void indexStepStates() {
+            statesById = new SparseArray<>(stepStates.size());
+            statesWithoutId = new ArrayList<>();
+            for (Step.State state : stepStates) {
+                if (state.stepViewId != View.NO_ID) {
+                    statesById.put(state.stepViewId, state);
+                } else {
+                    statesWithoutId.add(state);
+                }
+            }
+        }
+
+        /**
+         * Writes the step count, the ids of the step views, the active and complete flags packed into words, a table
+         * of the distinct strings and finally an entry for each step with an error or summary that refers to the
+         * table. Steps with neither only cost their id and two flag bits.
+         */
+        @VisibleForTesting
+        static void writeStepStates(Parcel dest, List<Step.State> stepStates) {
+            int count = stepStates.size();
+            dest.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                dest.writeInt(stepStates.get(i).stepViewId);
+            }
+            int wordCount = getWordCount(count);
+            for (int word = 0; word < wordCount; word++) {
+                int active = 0;
+                int complete = 0;
+                for (int bit = 0, i = word * Integer.SIZE; bit < Integer.SIZE && i < count; bit++, i++) {
+                    Step.State state = stepStates.get(i);
+                    if (state.active) {
+                        active |= 1 << bit;
+                    }
+                    if (state.complete) {
+                        complete |= 1 << bit;
+                    }
+                }
+                dest.writeInt(active);
+                dest.writeInt(complete);
+            }
+
+            Map<String, Integer> stringRefs = new HashMap<>();
+            List<String> strings = new ArrayList<>();
+            int entryCount = 0;
+            for (Step.State state : stepStates) {
+                if (!state.hasDefaultText()) {
+                    addString(state.error, stringRefs, strings);
+                    addString(state.summary, stringRefs, strings);
+                    entryCount++;
+                }
+            }
+            dest.writeInt(strings.size());
+            for (String string : strings) {
+                dest.writeString(string);
+            }
+
+            dest.writeInt(entryCount);
+            for (int i = 0; i < count; i++) {
+                Step.State state = stepStates.get(i);
+                if (!state.hasDefaultText()) {
+                    dest.writeInt(i);
+                    dest.writeInt(getStringRef(state.error, stringRefs));
+                    dest.writeInt(getStringRef(state.summary, stringRefs));
+                }
+            }
+        }
+
+        @VisibleForTesting
+        static List<Step.State> readStepStates(Parcel source) {
+            int count = source.readInt();
+            int[] stepViewIds = new int[count];
+            for (int i = 0; i < count; i++) {
+                stepViewIds[i] = source.readInt();
+            }
+            int wordCount = getWordCount(count);
+            int[] activeWords = new int[wordCount];
+            int[] completeWords = new int[wordCount];
+            for (int word = 0; word < wordCount; word++) {
+                activeWords[word] = source.readInt();
+                completeWords[word] = source.readInt();
+            }
+
+            String[] strings = new String[source.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = source.readString();
+            }
+
+            String[] errors = new String[count];
+            String[] summaries = new String[count];
+            int entryCount = source.readInt();
+            for (int entry = 0; entry < entryCount; entry++) {
+                int i = source.readInt();
+                errors[i] = getString(source.readInt(), strings);
+                summaries[i] = getString(source.readInt(), strings);
+            }
+
+            List<Step.State> stepStates = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int mask = 1 << (i % Integer.SIZE);
+                int word = i / Integer.SIZE;
+                boolean active = (activeWords[word] & mask) != 0;
+                boolean complete = (completeWords[word] & mask) != 0;
+                stepStates.add(new Step.State(stepViewIds[i], active, complete, errors[i], summaries[i]));
+            }
+            return stepStates;
+        }
+
+        private static int getWordCount(int bitCount) {
+            return (bitCount + Integer.SIZE - 1) / Integer.SIZE;
+        }
+
+        private static void addString(String string, Map<String, Integer> stringRefs, List<String> strings) {
+            if (string != null && !stringRefs.containsKey(string)) {
+                stringRefs.put(string, strings.size());
+                strings.add(string);
+            }
+        }
+
+        private static int getStringRef(String string, Map<String, Integer> stringRefs) {
+            return string != null ? stringRefs.get(string) : NO_STRING;
+        }
+
+        private static String getString(int ref, String[] strings) {
+            return ref != NO_STRING ? strings[ref] : null;
         }
     }
 }
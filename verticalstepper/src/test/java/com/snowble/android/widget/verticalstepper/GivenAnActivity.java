@@ -2,6 +2,7 @@ package com.snowble.android.widget.verticalstepper;
 
 import android.app.Activity;
 import android.os.Build;
+import android.view.View;
 
 import org.junit.Before;
 import org.junit.runner.RunWith;
@@ -41,4 +42,15 @@ public abstract class GivenAnActivity {
 
         return new VerticalStepper.LayoutParams(activity, attributeSetBuilder.build());
     }
+
+    View createStepView(int id) {
+        View view = new View(activity);
+        view.setId(id);
+        Robolectric.AttributeSetBuilder attributeSetBuilder = Robolectric.buildAttributeSet();
+        attributeSetBuilder.addAttribute(android.R.attr.layout_width, "match_parent");
+        attributeSetBuilder.addAttribute(android.R.attr.layout_height, "wrap_content");
+        attributeSetBuilder.addAttribute(R.attr.step_title, "title " + id);
+        view.setLayoutParams(new VerticalStepper.LayoutParams(activity, attributeSetBuilder.build()));
+        return view;
+    }
 }
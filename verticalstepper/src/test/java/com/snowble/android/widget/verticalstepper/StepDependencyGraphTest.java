@@ -0,0 +1,111 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.os.Build;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.M)
+public class StepDependencyGraphTest {
+    private static final int ADDRESS = 1;
+    private static final int SHIPPING = 2;
+    private static final int PAYMENT = 3;
+    private static final int NOTES = 4;
+
+    private StepDependencyGraph graph;
+    private List<Integer> visited;
+    private StepDependencyGraph.Visitor visitor;
+
+    @Before
+    public void setUp() {
+        graph = new StepDependencyGraph();
+        visited = new ArrayList<>();
+        visitor = new StepDependencyGraph.Visitor() {
+            @Override
+            public void visit(int stepViewId) {
+                visited.add(stepViewId);
+            }
+        };
+    }
+
+    @Test
+    public void walkDependents_NoDependencies_ShouldVisitNothing() {
+        graph.walkDependents(ADDRESS, visitor);
+
+        assertThat(visited).isEmpty();
+    }
+
+    @Test
+    public void walkDependents_ShouldVisitTransitiveDependentsOnly() {
+        graph.addDependency(SHIPPING, ADDRESS);
+        graph.addDependency(PAYMENT, SHIPPING);
+        graph.addDependency(NOTES, PAYMENT);
+
+        graph.walkDependents(SHIPPING, visitor);
+
+        assertThat(visited).containsExactly(PAYMENT, NOTES);
+    }
+
+    @Test
+    public void walkDependents_SharedDependent_ShouldVisitOnce() {
+        graph.addDependency(SHIPPING, ADDRESS);
+        graph.addDependency(PAYMENT, ADDRESS);
+        graph.addDependency(PAYMENT, SHIPPING);
+
+        graph.walkDependents(ADDRESS, visitor);
+
+        assertThat(visited).containsExactly(SHIPPING, PAYMENT);
+    }
+
+    @Test
+    public void walkDependents_Cycle_ShouldNotVisitChangedStep() {
+        graph.addDependency(SHIPPING, ADDRESS);
+        graph.addDependency(ADDRESS, SHIPPING);
+
+        graph.walkDependents(ADDRESS, visitor);
+
+        assertThat(visited).containsExactly(SHIPPING);
+    }
+
+    @Test
+    public void addDependency_Duplicate_ShouldOnlyBeAddedOnce() {
+        graph.addDependency(SHIPPING, ADDRESS);
+        graph.addDependency(SHIPPING, ADDRESS);
+
+        assertThat(graph.getDependents(ADDRESS)).containsExactly(SHIPPING);
+    }
+
+    @Test
+    public void removeDependency_ShouldNoLongerVisit() {
+        graph.addDependency(SHIPPING, ADDRESS);
+        graph.addDependency(PAYMENT, ADDRESS);
+
+        graph.removeDependency(SHIPPING, ADDRESS);
+        graph.walkDependents(ADDRESS, visitor);
+
+        assertThat(visited).containsExactly(PAYMENT);
+    }
+
+    @Test
+    public void removeDependency_LastDependency_ShouldBeEmpty() {
+        graph.addDependency(SHIPPING, ADDRESS);
+
+        graph.removeDependency(SHIPPING, ADDRESS);
+
+        assertThat(graph.isEmpty()).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addDependency_OnItself_ShouldThrow() {
+        graph.addDependency(ADDRESS, ADDRESS);
+    }
+}
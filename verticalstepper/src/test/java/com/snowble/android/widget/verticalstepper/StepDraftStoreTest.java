@@ -0,0 +1,190 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.os.Build;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Java6Assertions.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.M)
+public class StepDraftStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private List<Runnable> queuedTasks;
+    private StepDraftStore store;
+
+    @Before
+    public void givenAStoreWithAQueuedExecutor() throws IOException {
+        file = new File(folder.getRoot(), "draft");
+        queuedTasks = new ArrayList<>();
+        store = new StepDraftStore(file, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queuedTasks.add(command);
+            }
+        });
+    }
+
+    private void runQueuedTasks() {
+        for (Runnable task : queuedTasks) {
+            task.run();
+        }
+        queuedTasks.clear();
+    }
+
+    private static StepDraftStore.Draft createDraft(String summary) {
+        List<Step.State> states = Arrays.asList(
+                new Step.State(1, false, true, null, summary),
+                new Step.State(View.NO_ID, true, false, "error", null));
+        return new StepDraftStore.Draft(states, new int[] {10, 11}, new String[] {"text", ""});
+    }
+
+    private void writeInts(int... values) throws IOException {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        try {
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void read_NoDraft_ShouldReturnNull() {
+        assertThat(store.read()).isNull();
+    }
+
+    @Test
+    public void read_NegativeStepCount_ShouldReturnNull() throws IOException {
+        writeInts(2, -1, 0);
+
+        assertThat(store.read()).isNull();
+    }
+
+    @Test
+    public void read_StepCountLargerThanFile_ShouldReturnNull() throws IOException {
+        writeInts(2, Integer.MAX_VALUE, 0);
+
+        assertThat(store.read()).isNull();
+    }
+
+    @Test
+    public void read_FieldCountLargerThanFile_ShouldReturnNull() throws IOException {
+        writeInts(2, 0, 1000, 10, 0);
+
+        assertThat(store.read()).isNull();
+    }
+
+    @Test
+    public void read_StringLongerThanFile_ShouldReturnNull() throws IOException {
+        writeInts(2, 0, 1, 10, 1000);
+
+        assertThat(store.read()).isNull();
+    }
+
+    @Test
+    public void save_ShouldWriteDraftThatCanBeRead() {
+        store.save(createDraft("summary"));
+        runQueuedTasks();
+
+        StepDraftStore.Draft draft = store.read();
+
+        assertThat(draft).isNotNull();
+        assertThat(draft.stepStates).hasSize(2);
+        Step.State state1 = draft.stepStates.get(0);
+        assertThat(state1.stepViewId).isEqualTo(1);
+        assertThat(state1.active).isFalse();
+        assertThat(state1.complete).isTrue();
+        assertThat(state1.error).isNull();
+        assertThat(state1.summary).isEqualTo("summary");
+        Step.State state2 = draft.stepStates.get(1);
+        assertThat(state2.stepViewId).isEqualTo(View.NO_ID);
+        assertThat(state2.active).isTrue();
+        assertThat(state2.error).isEqualTo("error");
+        assertThat(state2.summary).isNull();
+        assertThat(draft.fieldIds).containsExactly(10, 11);
+        assertThat(draft.fieldValues).containsExactly("text", "");
+    }
+
+    @Test
+    public void save_WhileWriteIsPending_ShouldOnlyWriteLatestDraft() {
+        store.save(createDraft("first"));
+        store.save(createDraft("second"));
+
+        assertThat(queuedTasks).hasSize(1);
+
+        runQueuedTasks();
+
+        assertThat(store.read().stepStates.get(0).summary).isEqualTo("second");
+    }
+
+    @Test
+    public void write_ShouldNotLeaveTemporaryFile() {
+        store.write(createDraft("summary"));
+
+        assertThat(folder.getRoot().list()).containsExactly("draft");
+    }
+
+    @Test
+    public void delete_ShouldRemoveDraftAndDropPendingWrite() {
+        store.write(createDraft("summary"));
+        store.save(createDraft("pending"));
+
+        store.delete();
+        runQueuedTasks();
+
+        assertThat(file.exists()).isFalse();
+    }
+
+    @Test
+    public void delete_ShouldRemoveLeftoverTemporaryFile() throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        assertThat(tempFile.createNewFile()).isTrue();
+
+        store.delete();
+        runQueuedTasks();
+
+        assertThat(tempFile.exists()).isFalse();
+    }
+
+    @Test
+    public void write_ValueOver64KB_ShouldRoundTrip() {
+        char[] chars = new char[70 * 1024];
+        Arrays.fill(chars, '\u00e9');
+        String longValue = new String(chars);
+        store.write(new StepDraftStore.Draft(new ArrayList<Step.State>(), new int[] {10}, new String[] {longValue}));
+
+        StepDraftStore.Draft draft = store.read();
+
+        assertThat(draft).isNotNull();
+        assertThat(draft.fieldValues[0]).isEqualTo(longValue);
+    }
+
+    @Test
+    public void forFile_SameFile_ShouldReturnSameStore() {
+        StepDraftStore first = StepDraftStore.forFile(file);
+
+        assertThat(StepDraftStore.forFile(new File(folder.getRoot(), "draft"))).isSameAs(first);
+        assertThat(StepDraftStore.forFile(new File(folder.getRoot(), "other"))).isNotSameAs(first);
+    }
+}
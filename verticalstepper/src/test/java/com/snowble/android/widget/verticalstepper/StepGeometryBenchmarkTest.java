@@ -0,0 +1,198 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.graphics.PointF;
+import android.graphics.Rect;
+import android.text.TextPaint;
+import android.view.View;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.assertj.core.api.Java6Assertions.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Times the geometry and text measuring methods that run for every step on every measure and draw pass, on the
+ * android-all jar with Robolectric's shadows. Text measuring is shadowed so the numbers show the stepper's own
+ * overhead and are only comparable between runs on the same machine and JDK.
+ * <p>
+ * These are slow so they only run with {@code ./gradlew :verticalstepper:testDebugUnitTest -Pbenchmarks}. The results
+ * are written as JSON to {@link #RESULTS_FILE} so that runs from different releases can be compared.
+ */
+public class StepGeometryBenchmarkTest extends GivenAnActivity {
+    private static final String BENCHMARKS_PROPERTY = "verticalstepper.benchmarks";
+    private static final File RESULTS_FILE = new File("build/reports/benchmarks/step-geometry.json");
+    private static final int STEP_COUNT = 100;
+    private static final int OPERATIONS_PER_RUN = 10000;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 10;
+    private static final int WIDTH = 1080;
+
+    private static StringBuilder results;
+
+    private interface Operation {
+        void run(int i);
+    }
+
+    private VerticalStepper stepper;
+    private Step step;
+
+    @BeforeClass
+    public static void startResults() {
+        results = new StringBuilder();
+    }
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        if (results.length() == 0) {
+            return;
+        }
+        //noinspection ResultOfMethodCallIgnored
+        RESULTS_FILE.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(RESULTS_FILE), "UTF-8");
+        try {
+            writer.write("[\n" + results + "\n]\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Before
+    public void givenAMeasuredStepper() {
+        assumeTrue(Boolean.getBoolean(BENCHMARKS_PROPERTY));
+        stepper = new VerticalStepper(activity);
+        for (int i = 0; i < STEP_COUNT; i++) {
+            stepper.addView(createStepView(i + 1));
+        }
+        stepper.initSteps(null);
+        stepper.goToStep(STEP_COUNT / 2);
+        stepper.doMeasurement(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        step = stepper.steps.get(0);
+    }
+
+    private void time(String benchmark, Operation operation) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(operation);
+        }
+        double[] nanosPerOperation = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            run(operation);
+            nanosPerOperation[i] = (double) (System.nanoTime() - start) / OPERATIONS_PER_RUN;
+        }
+        report(benchmark, nanosPerOperation);
+    }
+
+    private static void run(Operation operation) {
+        for (int i = 0; i < OPERATIONS_PER_RUN; i++) {
+            operation.run(i);
+        }
+    }
+
+    private static void report(String benchmark, double[] nanosPerOperation) {
+        double[] sorted = nanosPerOperation.clone();
+        Arrays.sort(sorted);
+        double median = sorted[sorted.length / 2];
+        System.out.println(String.format(Locale.US, "%s\t%.1f", benchmark, median));
+
+        if (results.length() > 0) {
+            results.append(",\n");
+        }
+        results.append(String.format(Locale.US, "  {\"benchmark\": \"%s\", \"mode\": \"avgt\", ", benchmark))
+                .append(String.format(Locale.US, "\"score\": %.3f, \"scoreUnit\": \"ns/op\", \"rawData\": [", median));
+        for (int i = 0; i < nanosPerOperation.length; i++) {
+            results.append(i == 0 ? "" : ", ").append(String.format(Locale.US, "%.3f", nanosPerOperation[i]));
+        }
+        results.append("]}");
+    }
+
+    @Test
+    public void measureStepDecoratorHeight() {
+        time("Step.measureStepDecoratorHeight", new Operation() {
+            @Override
+            public void run(int i) {
+                step.measureStepDecoratorHeight();
+            }
+        });
+        assertThat(step.getDecoratorHeight()).isPositive();
+    }
+
+    @Test
+    public void measureStepDecoratorHeight_TitleChanged() {
+        final String[] titles = {"Title", "Another title"};
+        time("Step.measureStepDecoratorHeight.titleChanged", new Operation() {
+            @Override
+            public void run(int i) {
+                step.setTitle(titles[i & 1]);
+                step.measureStepDecoratorHeight();
+            }
+        });
+    }
+
+    @Test
+    public void calculateStepDecoratorTextWidth() {
+        time("Step.calculateStepDecoratorTextWidth", new Operation() {
+            @Override
+            public void run(int i) {
+                step.calculateStepDecoratorTextWidth();
+            }
+        });
+    }
+
+    @Test
+    public void calculateStepDecoratorTextWidth_TitleChanged() {
+        final String[] titles = {"Title", "Another title"};
+        time("Step.calculateStepDecoratorTextWidth.titleChanged", new Operation() {
+            @Override
+            public void run(int i) {
+                step.setTitle(titles[i & 1]);
+                step.calculateStepDecoratorTextWidth();
+            }
+        });
+    }
+
+    @Test
+    public void findTextCenterStartPoint() {
+        final TextPaint paint = step.getIconTextPaint();
+        final int iconDimension = step.getIconDimension();
+        final Rect bounds = new Rect();
+        final PointF center = new PointF();
+        time("ViewUtils.findTextCenterStartPoint", new Operation() {
+            @Override
+            public void run(int i) {
+                ViewUtils.findTextCenterStartPoint("42", iconDimension, iconDimension, paint, bounds, center);
+            }
+        });
+    }
+
+    @Test
+    public void calculateMaxStepWidth() {
+        time("VerticalStepper.calculateMaxStepWidth." + STEP_COUNT + "Steps", new Operation() {
+            @Override
+            public void run(int i) {
+                stepper.calculateMaxStepWidth();
+            }
+        });
+    }
+
+    @Test
+    public void calculateHeight() {
+        time("VerticalStepper.calculateHeight." + STEP_COUNT + "Steps", new Operation() {
+            @Override
+            public void run(int i) {
+                stepper.calculateHeight();
+            }
+        });
+    }
+}
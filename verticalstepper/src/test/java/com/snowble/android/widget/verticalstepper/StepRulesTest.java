@@ -0,0 +1,226 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.widget.EditText;
+import android.widget.LinearLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import static org.assertj.core.api.Java6Assertions.*;
+
+@RunWith(Enclosed.class)
+public class StepRulesTest {
+    private static final int FIELD_ID_1 = 1;
+    private static final int FIELD_ID_2 = 2;
+    private static final String ERROR = "error";
+
+    public static class GivenText {
+        @Test
+        public void parseNumber_Integer_ShouldReturnValue() {
+            assertThat(StepRules.parseNumber("42")).isEqualTo(42d);
+        }
+
+        @Test
+        public void parseNumber_SignedDecimal_ShouldReturnValue() {
+            assertThat(StepRules.parseNumber("-12.5")).isEqualTo(-12.5d);
+            assertThat(StepRules.parseNumber("+0.25")).isEqualTo(0.25d);
+        }
+
+        @Test
+        public void parseNumber_NotANumber_ShouldReturnNaN() {
+            assertThat(StepRules.parseNumber("12a")).isNaN();
+            assertThat(StepRules.parseNumber("1.2.3")).isNaN();
+            assertThat(StepRules.parseNumber("-")).isNaN();
+            assertThat(StepRules.parseNumber(".")).isNaN();
+        }
+    }
+
+    public static class GivenAStepViewWithTwoFields extends GivenAnActivity {
+        LinearLayout stepView;
+        EditText field1;
+        EditText field2;
+
+        @Before
+        public void givenAStepViewWithTwoFields() {
+            stepView = new LinearLayout(activity);
+            field1 = new EditText(activity);
+            field1.setId(FIELD_ID_1);
+            stepView.addView(field1);
+            field2 = new EditText(activity);
+            field2.setId(FIELD_ID_2);
+            stepView.addView(field2);
+        }
+
+        private ValidationResult evaluate(StepRules.Builder builder) {
+            return builder.build().compile(stepView).evaluate(false);
+        }
+
+        @Test
+        public void evaluate_RequiredFieldEmpty_ShouldFail() {
+            field1.setText("  ");
+
+            ValidationResult result = evaluate(new StepRules.Builder().required(FIELD_ID_1, ERROR));
+
+            assertThat(result).isNotNull();
+            assertThat(result.getResult()).isEqualTo(ValidationResult.INVALID);
+            assertThat(result.getError()).isEqualTo(ERROR);
+        }
+
+        @Test
+        public void evaluate_RequiredFieldSet_ShouldPass() {
+            field1.setText("text");
+
+            ValidationResult result = evaluate(new StepRules.Builder().required(FIELD_ID_1, ERROR));
+
+            assertThat(result).isNull();
+        }
+
+        @Test
+        public void evaluate_LengthRules_ShouldCheckBounds() {
+            StepRules.Builder builder = new StepRules.Builder()
+                    .minLength(FIELD_ID_1, 2, "short")
+                    .maxLength(FIELD_ID_1, 4, "long");
+
+            field1.setText("a");
+            assertThat(evaluate(builder).getError()).isEqualTo("short");
+
+            field1.setText("abcde");
+            assertThat(evaluate(builder).getError()).isEqualTo("long");
+
+            field1.setText("abc");
+            assertThat(evaluate(builder)).isNull();
+        }
+
+        @Test
+        public void evaluate_NonRequiredRulesWithEmptyField_ShouldPass() {
+            ValidationResult result = evaluate(new StepRules.Builder()
+                    .minLength(FIELD_ID_1, 2, ERROR)
+                    .matches(FIELD_ID_1, "\\d+", ERROR)
+                    .range(FIELD_ID_1, 1, 10, ERROR));
+
+            assertThat(result).isNull();
+        }
+
+        @Test
+        public void evaluate_Pattern_ShouldMatchEntireText() {
+            StepRules.Builder builder = new StepRules.Builder().matches(FIELD_ID_1, ".*\\.", ERROR);
+
+            field1.setText("no period");
+            assertThat(evaluate(builder).getError()).isEqualTo(ERROR);
+
+            field1.setText("period.");
+            assertThat(evaluate(builder)).isNull();
+        }
+
+        @Test
+        public void evaluate_Range_ShouldCheckNumericValue() {
+            StepRules.Builder builder = new StepRules.Builder().range(FIELD_ID_1, 1, 10, ERROR);
+
+            field1.setText("11");
+            assertThat(evaluate(builder).getError()).isEqualTo(ERROR);
+
+            field1.setText("ten");
+            assertThat(evaluate(builder).getError()).isEqualTo(ERROR);
+
+            field1.setText("9.5");
+            assertThat(evaluate(builder)).isNull();
+        }
+
+        @Test
+        public void evaluate_MultipleFields_ShouldReturnFirstFailure() {
+            field1.setText("text");
+            ValidationResult result = evaluate(new StepRules.Builder()
+                    .required(FIELD_ID_1, "first")
+                    .required(FIELD_ID_2, "second"));
+
+            assertThat(result.getError()).isEqualTo("second");
+        }
+
+        @Test
+        public void evaluate_RepeatedFailure_ShouldReuseResult() {
+            StepRules.Program program = new StepRules.Builder().required(FIELD_ID_1, ERROR).build().compile(stepView);
+
+            ValidationResult first = program.evaluate(false);
+            ValidationResult second = program.evaluate(false);
+
+            assertThat(first).isSameAs(second);
+        }
+
+        @Test
+        public void evaluate_OptionalWithEmptyFields_ShouldBeValidButIncomplete() {
+            StepRules.Program program = new StepRules.Builder().required(FIELD_ID_1, ERROR).build().compile(stepView);
+
+            ValidationResult result = program.evaluate(true);
+
+            assertThat(result).isSameAs(ValidationResult.VALID_INCOMPLETE_RESULT);
+        }
+
+        @Test
+        public void evaluate_OptionalWithText_ShouldCheckRules() {
+            field2.setText("text");
+            StepRules.Program program = new StepRules.Builder()
+                    .required(FIELD_ID_1, ERROR)
+                    .maxLength(FIELD_ID_2, 10, "long")
+                    .build()
+                    .compile(stepView);
+
+            ValidationResult result = program.evaluate(true);
+
+            assertThat(result.getError()).isEqualTo(ERROR);
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void compile_MissingField_ShouldThrow() {
+            new StepRules.Builder().required(-5, ERROR).build().compile(stepView);
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void required_EmptyError_ShouldThrow() {
+            new StepRules.Builder().required(FIELD_ID_1, "");
+        }
+    }
+
+    public static class GivenValidationAttributes extends GivenAnActivity {
+        Robolectric.AttributeSetBuilder attributeSetBuilder;
+
+        @Before
+        public void givenValidationAttributes() {
+            attributeSetBuilder = Robolectric.buildAttributeSet();
+            attributeSetBuilder.addAttribute(android.R.attr.layout_width, "match_parent");
+            attributeSetBuilder.addAttribute(android.R.attr.layout_height, "wrap_content");
+            attributeSetBuilder.addAttribute(R.attr.step_title, "title");
+        }
+
+        @Test
+        public void layoutParams_NoValidationField_ShouldHaveNoRules() {
+            attributeSetBuilder.addAttribute(R.attr.step_validation_required, "true");
+
+            VerticalStepper.LayoutParams lp = new VerticalStepper.LayoutParams(activity, attributeSetBuilder.build());
+
+            assertThat(lp.getRules()).isNull();
+        }
+
+        @Test
+        public void layoutParams_ValidationAttributes_ShouldCreateRules() {
+            attributeSetBuilder.addAttribute(R.attr.step_validation_field, "@android:id/text1");
+            attributeSetBuilder.addAttribute(R.attr.step_validation_required, "true");
+            attributeSetBuilder.addAttribute(R.attr.step_validation_max_length, "4");
+            attributeSetBuilder.addAttribute(R.attr.step_validation_error, ERROR);
+
+            VerticalStepper.LayoutParams lp = new VerticalStepper.LayoutParams(activity, attributeSetBuilder.build());
+
+            StepRules rules = lp.getRules();
+            assertThat(rules).isNotNull();
+            assertThat(rules.size()).isEqualTo(2);
+
+            EditText field = new EditText(activity);
+            field.setId(android.R.id.text1);
+            field.setText("too long");
+            ValidationResult result = rules.compile(field).evaluate(false);
+            assertThat(result.getError()).isEqualTo(ERROR);
+        }
+    }
+}
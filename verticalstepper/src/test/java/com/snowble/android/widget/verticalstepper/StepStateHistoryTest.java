@@ -0,0 +1,80 @@
+package com.snowble.android.widget.verticalstepper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Java6Assertions.*;
+
+public class StepStateHistoryTest {
+    private StepStateHistory history;
+    private StepStateTree initial;
+
+    private static Step.State createState(int id, boolean complete) {
+        return new Step.State(id, false, complete, null, null);
+    }
+
+    @Before
+    public void givenAHistoryOfTwoSteps() {
+        history = new StepStateHistory(2);
+        initial = StepStateTree.of(Arrays.asList(createState(0, false), createState(1, false)));
+        history.reset(initial);
+    }
+
+    @Test
+    public void commit_NothingRecorded_ShouldNotAddVersion() {
+        history.commit();
+
+        assertThat(history.canUndo()).isFalse();
+    }
+
+    @Test
+    public void undo_ShouldReturnPreviousVersionAndAllowRedo() {
+        history.record(0, createState(0, true));
+        history.commit();
+
+        assertThat(history.undo()).isSameAs(initial);
+        assertThat(history.canUndo()).isFalse();
+        assertThat(history.canRedo()).isTrue();
+        assertThat(history.redo().get(0).complete).isTrue();
+    }
+
+    @Test
+    public void undo_UncommittedChanges_ShouldCommitThemFirst() {
+        history.record(0, createState(0, true));
+
+        assertThat(history.canUndo()).isTrue();
+        assertThat(history.undo()).isSameAs(initial);
+        assertThat(history.canRedo()).isTrue();
+    }
+
+    @Test
+    public void record_AfterUndo_ShouldDropRedo() {
+        history.record(0, createState(0, true));
+        history.commit();
+        history.undo();
+
+        history.record(1, createState(1, true));
+
+        assertThat(history.canRedo()).isFalse();
+        history.commit();
+        assertThat(history.canRedo()).isFalse();
+    }
+
+    @Test
+    public void commit_PastLimit_ShouldDropOldestVersion() {
+        history.record(0, createState(0, true));
+        history.commit();
+        history.record(1, createState(1, true));
+        history.commit();
+        history.record(0, createState(0, false));
+        history.commit();
+
+        history.undo();
+        history.undo();
+
+        assertThat(history.canUndo()).isFalse();
+        assertThat(history.getWorking().get(0).complete).isTrue();
+    }
+}
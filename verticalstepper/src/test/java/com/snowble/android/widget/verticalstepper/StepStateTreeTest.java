@@ -0,0 +1,73 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.*;
+
+public class StepStateTreeTest {
+    private static final int SIZE = 5;
+
+    private StepStateTree tree;
+
+    private static Step.State createState(int id, boolean complete) {
+        return new Step.State(id, false, complete, null, null);
+    }
+
+    @Before
+    public void givenATreeOfFiveStates() {
+        List<Step.State> states = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            states.add(createState(i, false));
+        }
+        tree = StepStateTree.of(states);
+    }
+
+    @Test
+    public void get_ShouldReturnStatesInOrder() {
+        assertThat(tree.size()).isEqualTo(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            assertThat(tree.get(i).stepViewId).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void set_ShouldNotChangeOriginalTree() {
+        StepStateTree updated = tree.set(3, createState(3, true));
+
+        assertThat(updated.get(3).complete).isTrue();
+        assertThat(tree.get(3).complete).isFalse();
+        assertThat(updated.get(4)).isSameAs(tree.get(4));
+    }
+
+    @Test
+    public void set_EqualState_ShouldReturnSameTree() {
+        assertThat(tree.set(2, createState(2, false))).isSameAs(tree);
+    }
+
+    @Test
+    public void diff_ShouldVisitOnlyChangedStates() {
+        StepStateTree updated = tree.set(1, createState(1, true)).set(4, createState(4, true));
+        final List<Integer> visited = new ArrayList<>();
+
+        tree.diff(updated, new StepStateTree.DiffVisitor() {
+            @Override
+            public void onStateChanged(int index, @NonNull Step.State state) {
+                assertThat(state.complete).isTrue();
+                visited.add(index);
+            }
+        });
+
+        assertThat(visited).containsExactly(1, 4);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_OutOfBounds_ShouldThrow() {
+        tree.get(SIZE);
+    }
+}
@@ -0,0 +1,129 @@
+package com.snowble.android.widget.verticalstepper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Java6Assertions.*;
+
+public class StepStatusIndexTest {
+    private StepStatusIndex index;
+
+    @Before
+    public void givenAnIndexOfFourSteps() {
+        index = new StepStatusIndex();
+        index.setSize(4);
+    }
+
+    @Test
+    public void update_ShouldMaintainCounts() {
+        index.update(0, false, true, false, false);
+        index.update(1, true, false, true, true);
+        index.update(2, false, true, false, true);
+
+        assertThat(index.getCompleteCount()).isEqualTo(2);
+        assertThat(index.getErrorCount()).isEqualTo(1);
+        assertThat(index.getOptionalCount()).isEqualTo(2);
+        assertThat(index.getActiveCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void update_Repeated_ShouldNotCountTwice() {
+        index.update(1, false, true, false, false);
+        index.update(1, false, true, false, false);
+
+        assertThat(index.getCompleteCount()).isEqualTo(1);
+
+        index.update(1, false, false, false, false);
+
+        assertThat(index.getCompleteCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getActiveIndex_ShouldTrackMostRecentlyActivatedStep() {
+        assertThat(index.getActiveIndex()).isEqualTo(StepStatusIndex.NONE);
+
+        index.update(0, true, false, false, false);
+        index.update(2, true, false, false, false);
+        assertThat(index.getActiveIndex()).isEqualTo(2);
+
+        index.update(2, false, false, false, false);
+        assertThat(index.getActiveIndex()).isEqualTo(0);
+
+        index.update(0, false, false, false, false);
+        assertThat(index.getActiveIndex()).isEqualTo(StepStatusIndex.NONE);
+    }
+
+    @Test
+    public void getFirstErrorIndex_ShouldReturnLowestErrorPosition() {
+        assertThat(index.getFirstErrorIndex()).isEqualTo(StepStatusIndex.NONE);
+
+        index.update(3, false, false, true, false);
+        index.update(1, false, false, true, false);
+
+        assertThat(index.getFirstErrorIndex()).isEqualTo(1);
+    }
+
+    @Test
+    public void nextActiveIndex_ShouldSkipInactiveSteps() {
+        index.update(1, true, false, false, false);
+        index.update(3, true, false, false, false);
+
+        assertThat(index.nextActiveIndex(0)).isEqualTo(1);
+        assertThat(index.nextActiveIndex(2)).isEqualTo(3);
+        assertThat(index.nextActiveIndex(4)).isEqualTo(StepStatusIndex.NONE);
+    }
+
+    @Test
+    public void insert_ShouldShiftLaterSteps() {
+        index.update(1, true, true, false, false);
+        index.update(3, false, false, true, false);
+
+        index.insert(1);
+
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.isComplete(1)).isFalse();
+        assertThat(index.isComplete(2)).isTrue();
+        assertThat(index.hasError(4)).isTrue();
+        assertThat(index.getActiveIndex()).isEqualTo(2);
+        assertThat(index.getCompleteCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void remove_ShouldShiftLaterStepsAndUpdateCounts() {
+        index.update(1, false, true, false, false);
+        index.update(2, true, false, false, true);
+        index.update(3, false, false, true, false);
+
+        index.remove(1);
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.getCompleteCount()).isEqualTo(0);
+        assertThat(index.isOptional(1)).isTrue();
+        assertThat(index.hasError(2)).isTrue();
+        assertThat(index.hasError(3)).isFalse();
+        assertThat(index.getActiveIndex()).isEqualTo(1);
+    }
+
+    @Test
+    public void remove_ActiveStep_ShouldClearActiveIndex() {
+        index.update(2, true, false, false, false);
+
+        index.remove(2);
+
+        assertThat(index.getActiveIndex()).isEqualTo(StepStatusIndex.NONE);
+        assertThat(index.getActiveCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void setSize_Shrink_ShouldForgetRemovedSteps() {
+        index.update(3, true, true, true, true);
+
+        index.setSize(3);
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.getCompleteCount()).isEqualTo(0);
+        assertThat(index.getErrorCount()).isEqualTo(0);
+        assertThat(index.getOptionalCount()).isEqualTo(0);
+        assertThat(index.getActiveIndex()).isEqualTo(StepStatusIndex.NONE);
+    }
+}
@@ -36,10 +36,13 @@ public class StepTest {
         TextPaint summaryPaint;
         TextPaint optionalPaint;
         Rect titleRect;
+        Paint.FontMetrics fontMetrics;
 
         @Before
         public void givenCommonValues() {
             common = mock(Step.Common.class);
+            fontMetrics = new Paint.FontMetrics();
+            when(common.getTempFontMetrics()).thenReturn(fontMetrics);
 
             when(common.getIconActiveBackgroundPaint()).thenReturn(ICON_ACTIVE_PAINT);
             when(common.getIconInactiveBackgroundPaint()).thenReturn(ICON_INACTIVE_PAINT);
@@ -47,18 +50,15 @@ public class StepTest {
 
             titleInactivePaint = mock(TextPaint.class);
             titleRect = mock(Rect.class);
-            when(titleInactivePaint.getFontMetrics()).thenReturn(mock(Paint.FontMetrics.class));
             when(common.getTitleInactiveTextPaint()).thenReturn(titleInactivePaint);
             when(common.getTempRectForTitleTextBounds()).thenReturn(titleRect);
 
             summaryPaint = mock(TextPaint.class);
-            when(summaryPaint.getFontMetrics()).thenReturn(mock(Paint.FontMetrics.class));
             when(common.getSummaryTextPaint()).thenReturn(summaryPaint);
 
             optional = "optional";
             when(common.getOptionalSubtitle()).thenReturn(optional);
             optionalPaint = mock(TextPaint.class);
-            when(optionalPaint.getFontMetrics()).thenReturn(mock(Paint.FontMetrics.class));
             when(common.getOptionalTextPaint()).thenReturn(optionalPaint);
         }
 
@@ -120,6 +120,34 @@ public class StepTest {
             verify(paint).measureText(title);
         }
 
+        @Test
+        public void measureTitleHorizontalDimensions_SameTitleAndPaint_ShouldMeasureOnce() {
+            TextPaint paint = mock(TextPaint.class);
+            when(paint.measureText(title)).thenReturn(42f);
+            doReturn(paint).when(stepSpy).getTitleTextPaint();
+
+            stepSpy.measureTitleHorizontalDimensions();
+            stepSpy.measureTitleHorizontalDimensions();
+
+            verify(paint).measureText(title);
+            assertThat(stepSpy.getTitleWidth()).isEqualTo(42f);
+            assertThat(stepSpy.getTextCacheMisses()).isEqualTo(1);
+            assertThat(stepSpy.getTextCacheHits()).isEqualTo(1);
+        }
+
+        @Test
+        public void measureTitleHorizontalDimensions_DifferentPaint_ShouldMeasureAgain() {
+            TextPaint paint = mock(TextPaint.class);
+            doReturn(paint).when(stepSpy).getTitleTextPaint();
+            stepSpy.measureTitleHorizontalDimensions();
+            TextPaint otherPaint = mock(TextPaint.class);
+            doReturn(otherPaint).when(stepSpy).getTitleTextPaint();
+
+            stepSpy.measureTitleHorizontalDimensions();
+
+            verify(otherPaint).measureText(title);
+        }
+
         @Test
         public void measureSubtitleHorizontalDimensions_MeasuresUsingSubtitlePaint() {
             stepSpy.markComplete();
@@ -134,28 +162,32 @@ public class StepTest {
         @Test
         public void measureTitleVerticalDimensions_MeasuresUsingTitlePaint() {
             TextPaint paint = mock(TextPaint.class);
-            doReturn(mock(Paint.FontMetrics.class)).when(paint).getFontMetrics();
             doReturn(paint).when(stepSpy).getTitleTextPaint();
 
             stepSpy.measureTitleVerticalDimensions(0);
 
             // verify that the baseline is being measured using the text bounds
             verify(paint).getTextBounds(title, 0, 1, titleRect);
-            // verify that the bottom is being measured using the font metrics
-            verify(paint).getFontMetrics();
+            // verify that the bottom is being measured using the reused font metrics
+            verify(paint).getFontMetrics(fontMetrics);
+            verify(paint, never()).getFontMetrics();
         }
 
         @Test
         public void measureSubtitleVerticalDimensions_MeasuresUsingSubtitlePaint() {
             stepSpy.markComplete();
             TextPaint paint = mock(TextPaint.class);
-            doReturn(mock(Paint.FontMetrics.class)).when(paint).getFontMetrics();
             doReturn(paint).when(stepSpy).getSubtitleTextPaint();
+            fontMetrics.ascent = -10f;
+            fontMetrics.bottom = 3f;
 
             stepSpy.measureSubtitleVerticalDimensions();
 
-            // verify that the baseline and bottom are measured using the font metrics
-            verify(paint, times(2)).getFontMetrics();
+            // verify that the baseline and bottom are measured using the reused font metrics
+            verify(paint).getFontMetrics(fontMetrics);
+            verify(paint, never()).getFontMetrics();
+            assertThat(stepSpy.getSubtitleBaselineRelativeToTitleBottom()).isEqualTo(10f);
+            assertThat(stepSpy.getSubtitleBottomRelativeToTitleBottom()).isEqualTo(13f);
         }
 
         @Test
@@ -361,7 +393,7 @@ public class StepTest {
 
             assertThat(state.active).isFalse();
             assertThat(state.complete).isTrue();
-            assertThat(state.error).isEmpty();
+            assertThat(state.error).isNull();
             assertThat(state.summary).isEqualTo(summary);
         }
 
@@ -401,6 +433,29 @@ public class StepTest {
             assertThat(step.isComplete()).isFalse();
         }
 
+        @Test
+        public void isValidated_ShouldReturnFalseByDefault() {
+            assertThat(step.isValidated()).isFalse();
+            assertThat(step.needsRevalidation()).isFalse();
+        }
+
+        @Test
+        public void isValidated_CompleteOrError_ShouldReturnTrue() {
+            step.markComplete();
+            assertThat(step.isValidated()).isTrue();
+
+            step.setError("some error");
+            assertThat(step.isValidated()).isTrue();
+        }
+
+        @Test
+        public void isValidated_ValidatedButIncomplete_ShouldReturnTrue() {
+            step.markValidated();
+
+            assertThat(step.isComplete()).isFalse();
+            assertThat(step.isValidated()).isTrue();
+        }
+
         @Test
         public void hasError_ShouldReturnFalseByDefault() {
             assertThat(step.hasError()).isFalse();
@@ -420,6 +475,29 @@ public class StepTest {
             assertThat(subtitle).isEmpty();
         }
 
+        @Test
+        public void setErrorRes_ShouldResolveErrorLazily() {
+            int errorRes = 12;
+            String error = "resource error";
+            when(common.getString(errorRes)).thenReturn(error);
+
+            step.setError(errorRes);
+
+            verify(common, never()).getString(anyInt());
+            assertThat(step.hasError()).isTrue();
+            assertThat(step.isComplete()).isFalse();
+            assertThat(step.getSubtitle()).isEqualTo(error);
+        }
+
+        @Test
+        public void clearError_AfterErrorRes_ShouldNotHaveError() {
+            step.setError(12);
+
+            step.clearError();
+
+            assertThat(step.hasError()).isFalse();
+        }
+
         @Test
         public void getSubtitle_CompleteStep_ShouldReturnSummary() {
             String summary = "summary";
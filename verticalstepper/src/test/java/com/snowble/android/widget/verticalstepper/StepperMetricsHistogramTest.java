@@ -0,0 +1,98 @@
+package com.snowble.android.widget.verticalstepper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.snowble.android.widget.verticalstepper.StepperMetricsHistogram.*;
+import static org.assertj.core.api.Java6Assertions.*;
+
+public class StepperMetricsHistogramTest {
+    private static final long FIRST = FIRST_BUCKET_UPPER_BOUND_NANOS;
+
+    private StepperMetricsHistogram histogram;
+
+    @Before
+    public void givenAnEmptyHistogram() {
+        histogram = new StepperMetricsHistogram();
+    }
+
+    private void record(long totalNanos) {
+        histogram.onTransitionMetrics(StepperMetricsListener.TRANSITION_CONTINUE, 0, 0, 0, 0, 0, totalNanos);
+    }
+
+    @Test
+    public void getBucket_ShouldDoubleEachBucket() {
+        assertThat(getBucket(0)).isEqualTo(0);
+        assertThat(getBucket(FIRST - 1)).isEqualTo(0);
+        assertThat(getBucket(FIRST)).isEqualTo(1);
+        assertThat(getBucket(FIRST * 2 - 1)).isEqualTo(1);
+        assertThat(getBucket(FIRST * 2)).isEqualTo(2);
+        assertThat(getBucket(Long.MAX_VALUE)).isEqualTo(BUCKET_COUNT - 1);
+    }
+
+    @Test
+    public void getBucketUpperBoundNanos_ShouldBoundItsBucket() {
+        for (int bucket = 0; bucket < BUCKET_COUNT - 1; bucket++) {
+            long upperBound = getBucketUpperBoundNanos(bucket);
+            assertThat(getBucket(upperBound - 1)).isEqualTo(bucket);
+            assertThat(getBucket(upperBound)).isEqualTo(bucket + 1);
+        }
+        assertThat(getBucketUpperBoundNanos(BUCKET_COUNT - 1)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void onTransitionMetrics_ShouldCountEachPhase() {
+        histogram.onTransitionMetrics(StepperMetricsListener.TRANSITION_HEADER_TAP, 2, 10, FIRST, FIRST * 2,
+                FIRST * 4, FIRST * 8);
+
+        assertThat(histogram.getTransitionCount()).isEqualTo(1);
+        assertThat(histogram.getCount(PHASE_VALIDATION, 0)).isEqualTo(1);
+        assertThat(histogram.getCount(PHASE_MEASURE, 1)).isEqualTo(1);
+        assertThat(histogram.getCount(PHASE_LAYOUT, 2)).isEqualTo(1);
+        assertThat(histogram.getCount(PHASE_DRAW, 3)).isEqualTo(1);
+        assertThat(histogram.getCount(PHASE_TOTAL, 4)).isEqualTo(1);
+        assertThat(histogram.getSumNanos(PHASE_TOTAL)).isEqualTo(FIRST * 8);
+        assertThat(histogram.getMaxNanos(PHASE_VALIDATION)).isEqualTo(10);
+    }
+
+    @Test
+    public void getPercentileNanos_ShouldReturnBucketUpperBound() {
+        for (int i = 0; i < 9; i++) {
+            record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        record(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertThat(histogram.getPercentileNanos(PHASE_TOTAL, 50)).isEqualTo(FIRST);
+        assertThat(histogram.getPercentileNanos(PHASE_TOTAL, 90)).isEqualTo(FIRST);
+        assertThat(histogram.getPercentileNanos(PHASE_TOTAL, 99)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void getPercentileNanos_Empty_ShouldReturnZero() {
+        assertThat(histogram.getPercentileNanos(PHASE_TOTAL, 50)).isEqualTo(0);
+    }
+
+    @Test
+    public void drainTo_ShouldMoveCountsAndReset() {
+        StepperMetricsHistogram target = new StepperMetricsHistogram();
+        target.onTransitionMetrics(StepperMetricsListener.TRANSITION_CONTINUE, 0, 0, 0, 0, 0, FIRST * 100);
+        record(FIRST);
+        record(FIRST);
+
+        histogram.drainTo(target);
+
+        assertThat(target.getTransitionCount()).isEqualTo(2);
+        assertThat(target.getCount(PHASE_TOTAL, 1)).isEqualTo(2);
+        assertThat(target.getMaxNanos(PHASE_TOTAL)).isEqualTo(FIRST);
+        assertThat(histogram.getTransitionCount()).isEqualTo(0);
+        assertThat(histogram.getCount(PHASE_TOTAL, 1)).isEqualTo(0);
+        assertThat(histogram.getSumNanos(PHASE_TOTAL)).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getCount_UnknownPhase_ShouldThrow() {
+        histogram.getCount(PHASE_COUNT, 0);
+    }
+}
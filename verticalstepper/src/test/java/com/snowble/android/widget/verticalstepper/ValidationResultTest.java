@@ -0,0 +1,62 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Java6Assertions.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.M)
+public class ValidationResultTest {
+    @Test
+    public void invalid_SameError_ShouldReturnSameInstance() {
+        ValidationResult first = ValidationResult.invalid("interned error");
+        ValidationResult second = ValidationResult.invalid(new String("interned error"));
+
+        assertThat(first).isSameAs(second);
+        assertThat(first.getResult()).isEqualTo(ValidationResult.INVALID);
+        assertThat(first.getError()).isEqualTo("interned error");
+        assertThat(first.getErrorRes()).isZero();
+    }
+
+    @Test
+    public void invalid_SameErrorRes_ShouldReturnSameInstance() {
+        ValidationResult first = ValidationResult.invalid(R.string.validation_error_required);
+        ValidationResult second = ValidationResult.invalid(R.string.validation_error_required);
+
+        assertThat(first).isSameAs(second);
+        assertThat(first.getResult()).isEqualTo(ValidationResult.INVALID);
+        assertThat(first.getError()).isNull();
+        assertThat(first.getErrorRes()).isEqualTo(R.string.validation_error_required);
+    }
+
+    @Test
+    public void invalid_DifferentErrors_ShouldReturnDifferentInstances() {
+        ValidationResult first = ValidationResult.invalid("first error");
+        ValidationResult second = ValidationResult.invalid("second error");
+
+        assertThat(first).isNotSameAs(second);
+    }
+
+    @Test
+    public void invalid_ManyDistinctErrors_ShouldStillReturnCorrectResults() {
+        for (int i = 0; i < ValidationResult.MAX_INTERNED_RESULTS * 2; i++) {
+            String error = "error " + i;
+
+            ValidationResult result = ValidationResult.invalid(error);
+
+            assertThat(result.getError()).isEqualTo(error);
+        }
+    }
+
+    @Test
+    public void constructor_ShouldNotHaveErrorRes() {
+        ValidationResult result = new ValidationResult("error");
+
+        assertThat(result.getErrorRes()).isZero();
+    }
+}
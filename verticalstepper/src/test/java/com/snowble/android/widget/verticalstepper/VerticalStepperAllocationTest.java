@@ -0,0 +1,260 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.view.View;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+import static org.assertj.core.api.Java6Assertions.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures the bytes allocated on the current thread by a steady-state measure, layout, draw, dump or bind pass.
+ * Measuring, layout and drawing must never allocate. Dumping and binding may, but not more than the baseline
+ * recorded in {@link #BASELINE_FILE}. Those numbers include whatever Robolectric allocates on the stepper's behalf
+ * so they're only comparable on the same JDK.
+ * <p>
+ * A baseline phase without an entry fails. Run the tests with {@code -PrecordAllocationBaseline} to record them after
+ * an intended change and commit the updated file.
+ */
+public class VerticalStepperAllocationTest extends GivenAnActivity {
+    private static final File BASELINE_FILE = new File("src/test/resources/allocation-baseline.properties");
+    private static final String RECORD_PROPERTY = "verticalstepper.recordAllocationBaseline";
+    private static final int STEP_COUNT = 10;
+    private static final int WARMUP_RUNS = 50;
+    private static final int MEASURED_RUNS = 10;
+    private static final int WIDTH = 1080;
+
+    private static Properties baseline;
+
+    private interface Phase {
+        void run();
+    }
+
+    /**
+     * A canvas that ignores everything so that only the stepper's own allocations are counted and not those of
+     * Robolectric recording what's drawn.
+     */
+    private static class NoOpCanvas extends Canvas {
+        @Override
+        public int save() {
+            return 0;
+        }
+
+        @Override
+        public void restore() {
+        }
+
+        @Override
+        public void translate(float dx, float dy) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        }
+
+        @Override
+        public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        }
+    }
+
+    private final Phase noOp = new Phase() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private com.sun.management.ThreadMXBean threadBean;
+    private VerticalStepper stepper;
+    private int widthMeasureSpec;
+    private int heightMeasureSpec;
+
+    @BeforeClass
+    public static void loadBaseline() throws IOException {
+        baseline = new Properties();
+        // Recording starts over so that phases which are no longer measured drop out of the file.
+        if (!isRecording() && BASELINE_FILE.exists()) {
+            InputStream in = new FileInputStream(BASELINE_FILE);
+            try {
+                baseline.load(in);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    @AfterClass
+    public static void saveBaseline() throws IOException {
+        if (!isRecording()) {
+            return;
+        }
+        OutputStream out = new FileOutputStream(BASELINE_FILE);
+        try {
+            baseline.store(out, "Bytes allocated per steady-state pass. See VerticalStepperAllocationTest.");
+        } finally {
+            out.close();
+        }
+    }
+
+    private static boolean isRecording() {
+        return Boolean.getBoolean(RECORD_PROPERTY);
+    }
+
+    @Before
+    public void givenAnInitializedStepper() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        stepper = new VerticalStepper(activity);
+        for (int i = 0; i < STEP_COUNT; i++) {
+            stepper.addView(createStepView(i + 1));
+        }
+        stepper.initSteps(null);
+        stepper.goToStep(STEP_COUNT / 2);
+
+        widthMeasureSpec = View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY);
+        heightMeasureSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        stepper.doMeasurement(widthMeasureSpec, heightMeasureSpec);
+        stepper.onLayout(true, 0, 0, stepper.getMeasuredWidth(), stepper.getMeasuredHeight());
+    }
+
+    private long measureAllocatedBytes(Phase phase) {
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            phase.run();
+        }
+        // The fewest bytes of several runs filters out one-off allocations such as the JIT's.
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            phase.run();
+            long after = threadBean.getThreadAllocatedBytes(threadId);
+            min = Math.min(min, after - before);
+        }
+        return min;
+    }
+
+    private long measureAllocatedBytesWithoutOverhead(Phase phase) {
+        long overhead = measureAllocatedBytes(noOp);
+        return Math.max(0, measureAllocatedBytes(phase) - overhead);
+    }
+
+    private void assertWithinBaseline(String phaseName, Phase phase) {
+        long allocated = measureAllocatedBytesWithoutOverhead(phase);
+        if (isRecording()) {
+            baseline.setProperty(phaseName, String.valueOf(allocated));
+            System.out.println("Recorded an allocation baseline of " + allocated + " bytes for " + phaseName);
+            return;
+        }
+        String recorded = baseline.getProperty(phaseName);
+        assertThat(recorded)
+                .as("Allocation baseline for %s in %s, record it with -PrecordAllocationBaseline", phaseName,
+                        BASELINE_FILE)
+                .isNotNull();
+        assertThat(allocated)
+                .as("Bytes allocated by %s, baseline %s", phaseName, recorded)
+                .isLessThanOrEqualTo(Long.parseLong(recorded));
+    }
+
+    private void assertDoesNotAllocate(String phaseName, Phase phase) {
+        assertThat(measureAllocatedBytesWithoutOverhead(phase)).as("Bytes allocated by %s", phaseName).isEqualTo(0);
+    }
+
+    @Test
+    public void doMeasurement_SteadyState_ShouldNotAllocate() {
+        assertDoesNotAllocate("doMeasurement", new Phase() {
+            @Override
+            public void run() {
+                stepper.doMeasurement(widthMeasureSpec, heightMeasureSpec);
+            }
+        });
+    }
+
+    @Test
+    public void onLayout_SteadyState_ShouldNotAllocate() {
+        final int width = stepper.getMeasuredWidth();
+        final int height = stepper.getMeasuredHeight();
+        assertDoesNotAllocate("onLayout", new Phase() {
+            @Override
+            public void run() {
+                stepper.onLayout(true, 0, 0, width, height);
+            }
+        });
+    }
+
+    @Test
+    public void dump_SteadyState_ShouldNotAllocateMoreThanBaseline() {
+        final PrintWriter writer = new PrintWriter(new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int count) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        assertWithinBaseline("dump", new Phase() {
+            @Override
+            public void run() {
+                stepper.dump(writer);
+            }
+        });
+    }
+
+    @Test
+    public void bind_SameStepCount_ShouldNotAllocateMoreThanBaseline() {
+        StepperState.Builder builder = new StepperState.Builder();
+        for (int i = 0; i < STEP_COUNT; i++) {
+            builder.addStep("Step " + i).setActive(i == STEP_COUNT / 2).setComplete(i < STEP_COUNT / 2);
+        }
+        final StepperState state = builder.build();
+        assertWithinBaseline("bind", new Phase() {
+            @Override
+            public void run() {
+                stepper.bind(state);
+            }
+        });
+    }
+
+    @Test
+    public void doDraw_SteadyState_ShouldNotAllocate() {
+        final Canvas canvas = new NoOpCanvas();
+        assertDoesNotAllocate("doDraw", new Phase() {
+            @Override
+            public void run() {
+                stepper.doDraw(canvas);
+            }
+        });
+    }
+}
@@ -0,0 +1,183 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.graphics.Canvas;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Java6Assertions.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Times each phase of the stepper for increasing numbers of steps so that the per-step cost can be compared across
+ * sizes. A phase scales linearly when its time per step stays flat as the number of steps grows.
+ * <p>
+ * These are slow so they only run with {@code ./gradlew :verticalstepper:testDebugUnitTest -Pbenchmarks}. Each result
+ * is printed as a tab-separated line: the phase, the number of steps, the median nanoseconds per run and the median
+ * nanoseconds per step.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class VerticalStepperBenchmarkTest extends GivenAnActivity {
+    private static final String BENCHMARKS_PROPERTY = "verticalstepper.benchmarks";
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 7;
+    private static final int WIDTH = 1080;
+
+    private interface Phase {
+        void run();
+    }
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0} steps")
+    public static List<Object[]> stepCounts() {
+        return Arrays.asList(new Object[][] {{10}, {100}, {1000}, {10000}});
+    }
+
+    private final int stepCount;
+    private VerticalStepper stepper;
+    private int widthMeasureSpec;
+    private int heightMeasureSpec;
+
+    public VerticalStepperBenchmarkTest(int stepCount) {
+        this.stepCount = stepCount;
+    }
+
+    @Before
+    public void givenBenchmarksAreEnabled() {
+        assumeTrue(Boolean.getBoolean(BENCHMARKS_PROPERTY));
+        widthMeasureSpec = View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY);
+        heightMeasureSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+    }
+
+    private VerticalStepper createStepper() {
+        VerticalStepper stepper = new VerticalStepper(activity);
+        for (int i = 0; i < stepCount; i++) {
+            stepper.addView(createStepView(i + 1));
+        }
+        return stepper;
+    }
+
+    private void givenAnInitializedStepper() {
+        stepper = createStepper();
+        stepper.initSteps(null);
+        stepper.goToStep(0);
+        measureAndLayout();
+    }
+
+    private void measureAndLayout() {
+        stepper.doMeasurement(widthMeasureSpec, heightMeasureSpec);
+        stepper.onLayout(true, 0, 0, stepper.getMeasuredWidth(), stepper.getMeasuredHeight());
+    }
+
+    private void report(String phaseName, long[] durations) {
+        Arrays.sort(durations);
+        long median = durations[durations.length / 2];
+        System.out.println(String.format(Locale.US, "%s\t%d\t%d\t%d", phaseName, stepCount, median,
+                median / stepCount));
+    }
+
+    private void time(String phaseName, Phase phase) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            phase.run();
+        }
+        long[] durations = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            phase.run();
+            durations[i] = System.nanoTime() - start;
+        }
+        report(phaseName, durations);
+    }
+
+    @Test
+    public void initSteps() {
+        // Every run needs a fresh stepper so only initSteps itself is timed.
+        long[] durations = new long[MEASURED_RUNS];
+        for (int i = -WARMUP_RUNS; i < MEASURED_RUNS; i++) {
+            VerticalStepper stepper = createStepper();
+            long start = System.nanoTime();
+            stepper.initSteps(null);
+            long duration = System.nanoTime() - start;
+            if (i >= 0) {
+                durations[i] = duration;
+            }
+            assertThat(stepper.getStepCount()).isEqualTo(stepCount);
+        }
+        report("initSteps", durations);
+    }
+
+    @Test
+    public void doMeasurement() {
+        givenAnInitializedStepper();
+
+        time("doMeasurement", new Phase() {
+            @Override
+            public void run() {
+                stepper.doMeasurement(widthMeasureSpec, heightMeasureSpec);
+            }
+        });
+    }
+
+    @Test
+    public void onLayout() {
+        givenAnInitializedStepper();
+        final int width = stepper.getMeasuredWidth();
+        final int height = stepper.getMeasuredHeight();
+
+        time("onLayout", new Phase() {
+            @Override
+            public void run() {
+                stepper.onLayout(true, 0, 0, width, height);
+            }
+        });
+    }
+
+    @Test
+    public void doDraw() {
+        givenAnInitializedStepper();
+
+        time("doDraw", new Phase() {
+            @Override
+            public void run() {
+                // Robolectric's canvas records what's drawn so a fresh one keeps the history from growing.
+                stepper.doDraw(new Canvas());
+            }
+        });
+    }
+
+    @Test
+    public void headerTap() {
+        givenAnInitializedStepper();
+        final View touchView = stepper.steps.get(stepCount / 2).getTouchView();
+
+        time("headerTap", new Phase() {
+            @Override
+            public void run() {
+                touchView.performClick();
+            }
+        });
+    }
+
+    @Test
+    public void continueTap() {
+        givenAnInitializedStepper();
+
+        time("continueTap", new Phase() {
+            @Override
+            public void run() {
+                int activeIndex = stepper.getActiveStepIndex();
+                if (activeIndex < 0 || activeIndex == stepCount - 1) {
+                    stepper.goToStep(0);
+                    activeIndex = 0;
+                }
+                stepper.steps.get(activeIndex).getContinueButton().performClick();
+            }
+        });
+    }
+}
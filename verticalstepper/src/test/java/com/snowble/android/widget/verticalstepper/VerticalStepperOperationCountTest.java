@@ -0,0 +1,218 @@
+package com.snowble.android.widget.verticalstepper;
+
+import android.content.Context;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.text.TextPaint;
+import android.view.View;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Java6Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Counts the work a single interaction causes instead of timing it so that the results are the same on any machine.
+ * Each interaction is run on a small and a large stepper; work that doesn't depend on the number of steps must come
+ * out the same for both.
+ */
+public class VerticalStepperOperationCountTest extends GivenAnActivity {
+    private static final int SMALL_STEP_COUNT = 10;
+    private static final int LARGE_STEP_COUNT = 100;
+    /**
+     * A step's title width, subtitle width, title bounds, title font metrics and subtitle font metrics.
+     */
+    private static final int TEXT_MEASUREMENTS_PER_STEP = 5;
+    private static final int WIDTH = 1080;
+
+    private static class CountingTextPaint extends TextPaint {
+        private final Counts counts;
+
+        CountingTextPaint(TextPaint paint, Counts counts) {
+            super(paint);
+            this.counts = counts;
+        }
+
+        @Override
+        public float measureText(String text) {
+            counts.textMeasurements++;
+            return super.measureText(text);
+        }
+
+        @Override
+        public void getTextBounds(String text, int start, int end, Rect bounds) {
+            counts.textMeasurements++;
+            super.getTextBounds(text, start, end, bounds);
+        }
+
+        @Override
+        public float getFontMetrics(Paint.FontMetrics metrics) {
+            counts.textMeasurements++;
+            return super.getFontMetrics(metrics);
+        }
+    }
+
+    private static class CountingView extends View {
+        private final Counts counts;
+
+        CountingView(Context context, Counts counts) {
+            super(context);
+            this.counts = counts;
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            counts.measures++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            counts.layouts++;
+            super.onLayout(changed, left, top, right, bottom);
+        }
+    }
+
+    private static class Counts {
+        int textMeasurements;
+        int measures;
+        int layouts;
+
+        void reset() {
+            textMeasurements = 0;
+            measures = 0;
+            layouts = 0;
+        }
+    }
+
+    private interface Interaction {
+        void run(VerticalStepper stepper);
+    }
+
+    private final Interaction tapMiddleHeader = new Interaction() {
+        @Override
+        public void run(VerticalStepper stepper) {
+            stepper.steps.get(stepper.getStepCount() / 2).getTouchView().performClick();
+        }
+    };
+
+    private final Interaction continueFirstStep = new Interaction() {
+        @Override
+        public void run(VerticalStepper stepper) {
+            stepper.steps.get(0).getContinueButton().performClick();
+        }
+    };
+
+    private VerticalStepper createStepper(int stepCount, Counts counts) {
+        VerticalStepper stepper = new VerticalStepper(activity);
+        stepper.commonStepValues = createCountingCommon(stepper.commonStepValues, counts);
+        for (int i = 0; i < stepCount; i++) {
+            View stepView = new CountingView(activity, counts);
+            stepView.setId(i + 1);
+            stepView.setLayoutParams(createTestLayoutParams());
+            stepper.addView(stepView);
+        }
+        stepper.initSteps(null);
+        stepper.goToStep(0);
+        return stepper;
+    }
+
+    private static Step.Common createCountingCommon(Step.Common common, Counts counts) {
+        Step.Common commonSpy = spy(common);
+        doReturn(new CountingTextPaint(common.getTitleActiveTextPaint(), counts))
+                .when(commonSpy).getTitleActiveTextPaint();
+        doReturn(new CountingTextPaint(common.getTitleInactiveTextPaint(), counts))
+                .when(commonSpy).getTitleInactiveTextPaint();
+        doReturn(new CountingTextPaint(common.getTitleCompleteTextPaint(), counts))
+                .when(commonSpy).getTitleCompleteTextPaint();
+        doReturn(new CountingTextPaint(common.getTitleErrorTextPaint(), counts))
+                .when(commonSpy).getTitleErrorTextPaint();
+        doReturn(new CountingTextPaint(common.getSummaryTextPaint(), counts))
+                .when(commonSpy).getSummaryTextPaint();
+        doReturn(new CountingTextPaint(common.getSubtitleErrorTextPaint(), counts))
+                .when(commonSpy).getSubtitleErrorTextPaint();
+        doReturn(new CountingTextPaint(common.getOptionalTextPaint(), counts))
+                .when(commonSpy).getOptionalTextPaint();
+        return commonSpy;
+    }
+
+    private static void measureAndLayout(VerticalStepper stepper) {
+        int wms = View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY);
+        int hms = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        stepper.doMeasurement(wms, hms);
+        stepper.onLayout(true, 0, 0, stepper.getMeasuredWidth(), stepper.getMeasuredHeight());
+    }
+
+    /**
+     * @return the work done by {@code interaction} and the measure and layout pass that follows it, after a first
+     * pass over a stepper with {@code stepCount} steps.
+     */
+    private Counts count(int stepCount, Interaction interaction) {
+        Counts counts = new Counts();
+        VerticalStepper stepper = createStepper(stepCount, counts);
+        measureAndLayout(stepper);
+        counts.reset();
+
+        interaction.run(stepper);
+        measureAndLayout(stepper);
+        return counts;
+    }
+
+    @Test
+    public void firstPass_ShouldMeasureEveryStepsText() {
+        Counts counts = new Counts();
+        VerticalStepper stepper = createStepper(SMALL_STEP_COUNT, counts);
+        counts.reset();
+
+        measureAndLayout(stepper);
+
+        assertThat(counts.textMeasurements).isGreaterThanOrEqualTo(SMALL_STEP_COUNT);
+        assertThat(counts.textMeasurements).isLessThanOrEqualTo(SMALL_STEP_COUNT * TEXT_MEASUREMENTS_PER_STEP);
+    }
+
+    @Test
+    public void unchangedPass_ShouldNotMeasureText() {
+        Counts counts = count(LARGE_STEP_COUNT, new Interaction() {
+            @Override
+            public void run(VerticalStepper stepper) {
+            }
+        });
+
+        assertThat(counts.textMeasurements).isEqualTo(0);
+        assertThat(counts.layouts).isEqualTo(0);
+        // Every step's views are measured so that the stepper's width accounts for them, but only once per pass.
+        assertThat(counts.measures).isLessThanOrEqualTo(LARGE_STEP_COUNT);
+    }
+
+    @Test
+    public void headerTap_ShouldOnlyMeasureTextOfToggledSteps() {
+        Counts small = count(SMALL_STEP_COUNT, tapMiddleHeader);
+        Counts large = count(LARGE_STEP_COUNT, tapMiddleHeader);
+
+        // The first step collapses and the tapped step expands.
+        assertThat(small.textMeasurements).isLessThanOrEqualTo(2 * TEXT_MEASUREMENTS_PER_STEP);
+        assertThat(large.textMeasurements).isEqualTo(small.textMeasurements);
+    }
+
+    @Test
+    public void headerTap_ShouldMeasureEachStepAtMostOnceAndOnlyLayoutTheExpandedStep() {
+        Counts small = count(SMALL_STEP_COUNT, tapMiddleHeader);
+        Counts large = count(LARGE_STEP_COUNT, tapMiddleHeader);
+
+        assertThat(small.measures).isLessThanOrEqualTo(SMALL_STEP_COUNT);
+        assertThat(large.measures).isLessThanOrEqualTo(LARGE_STEP_COUNT);
+        assertThat(small.layouts).isLessThanOrEqualTo(1);
+        assertThat(large.layouts).isEqualTo(small.layouts);
+    }
+
+    @Test
+    public void continueTap_ShouldOnlyMeasureTextOfCompletedAndNextSteps() {
+        Counts small = count(SMALL_STEP_COUNT, continueFirstStep);
+        Counts large = count(LARGE_STEP_COUNT, continueFirstStep);
+
+        assertThat(small.textMeasurements).isLessThanOrEqualTo(2 * TEXT_MEASUREMENTS_PER_STEP);
+        assertThat(large.textMeasurements).isEqualTo(small.textMeasurements);
+        assertThat(large.measures).isLessThanOrEqualTo(LARGE_STEP_COUNT);
+        assertThat(large.layouts).isEqualTo(small.layouts);
+    }
+}
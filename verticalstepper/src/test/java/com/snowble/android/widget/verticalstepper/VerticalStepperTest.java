@@ -7,11 +7,16 @@ import android.graphics.Paint;
 import android.graphics.PointF;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.v4.content.res.ResourcesCompat;
 import android.support.v7.widget.AppCompatButton;
 import android.text.TextPaint;
+import android.text.TextWatcher;
 import android.view.View;
+import android.widget.EditText;
+
+import com.snowble.android.widget.verticalstepper.core.StepperController;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -23,8 +28,14 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.robolectric.Robolectric;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Java6Assertions.*;
 import static org.mockito.Mockito.*;
@@ -66,11 +77,20 @@ public class VerticalStepperTest {
             stepper = new VerticalStepper(activity);
         }
 
+        void addStep(MockedStep step) {
+            when(step.step.getIndex()).thenReturn(stepper.steps.size());
+            stepper.steps.add(step.step);
+            stepper.statusIndex.setSize(stepper.steps.size());
+            stepper.controller.setStepCount(stepper.steps.size());
+        }
+
         void mockActiveState(MockedStep step, boolean isActive) {
             when(step.step.isActive()).thenReturn(isActive);
             int visibility = isActive ? View.VISIBLE : View.GONE;
             when(step.innerView.getVisibility()).thenReturn(visibility);
             when(step.continueButton.getVisibility()).thenReturn(visibility);
+            stepper.statusIndex.update(step.step.getIndex(), isActive, false, false, false);
+            stepper.controller.restoreState(step.step.getIndex(), isActive, false, false);
         }
     }
 
@@ -289,6 +309,140 @@ public class VerticalStepperTest {
 
             verify(activeView).layout(eq(left), eq(top), eq(left + measuredWidth), eq(top + measuredHeight));
         }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void registerDraftField_NoId_ShouldThrow() {
+            stepper.registerDraftField(new EditText(activity));
+        }
+
+        @Test
+        public void registerDraftField_ShouldOnlyWatchFieldOnce() {
+            EditText field = spy(new EditText(activity));
+            field.setId(1);
+
+            stepper.registerDraftField(field);
+            stepper.registerDraftField(field);
+
+            verify(field).addTextChangedListener(any(TextWatcher.class));
+        }
+
+        private void layoutStepper() {
+            int ms = View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY);
+            stepper.measure(ms, ms);
+            stepper.layout(0, 0, 100, 100);
+        }
+
+        @Test
+        public void setSteps_BeforeInitialized_ShouldApplyOnFirstMeasure() {
+            stepper.addView(createStepView(1));
+            View view = new View(activity);
+            stepper.setSteps(Arrays.asList(new StepModel.Builder("a", view, "A").build()));
+
+            layoutStepper();
+
+            assertThat(stepper.steps).hasSize(1);
+            assertThat(stepper.steps.get(0).getInnerView()).isSameAs(view);
+            assertThat(stepper.getStepIndex(1)).isEqualTo(-1);
+        }
+
+        @Test
+        public void setSteps_BeforeRestored_ShouldRestoreStepsByViewId() {
+            View viewA = new View(activity);
+            viewA.setId(1);
+            View viewB = new View(activity);
+            viewB.setId(2);
+            stepper.setSteps(Arrays.asList(new StepModel.Builder("a", viewA, "A").build(),
+                    new StepModel.Builder("b", viewB, "B").build()));
+            List<Step.State> states = Arrays.asList(new Step.State(1, false, true, null, null),
+                    new Step.State(2, true, false, "error", null));
+
+            stepper.onRestoreInstanceState(new VerticalStepper.SavedState(View.BaseSavedState.EMPTY_STATE, states));
+            stepper.onAttachedToWindow();
+
+            Step stepA = stepper.steps.get(0);
+            Step stepB = stepper.steps.get(1);
+            assertThat(stepA.isComplete()).isTrue();
+            assertThat(stepA.isActive()).isFalse();
+            assertThat(stepB.isActive()).isTrue();
+            assertThat(stepB.hasError()).isTrue();
+            assertThat(stepper.getErrorCount()).isEqualTo(1);
+        }
+
+        @Test
+        public void requestLayout_InBatch_ShouldDeferUntilBatchEnds() {
+            layoutStepper();
+
+            stepper.beginBatchUpdate();
+            stepper.requestLayout();
+            stepper.requestLayout();
+            assertThat(stepper.isLayoutRequested()).isFalse();
+
+            stepper.endBatchUpdate();
+            assertThat(stepper.isLayoutRequested()).isTrue();
+        }
+
+        @Test
+        public void requestLayout_InNestedBatch_ShouldDeferUntilOutermostBatchEnds() {
+            layoutStepper();
+
+            stepper.beginBatchUpdate();
+            stepper.beginBatchUpdate();
+            stepper.requestLayout();
+            stepper.endBatchUpdate();
+            assertThat(stepper.isLayoutRequested()).isFalse();
+
+            stepper.endBatchUpdate();
+            assertThat(stepper.isLayoutRequested()).isTrue();
+        }
+
+        @Test
+        public void endBatchUpdate_NothingChanged_ShouldNotRequestLayout() {
+            layoutStepper();
+
+            stepper.beginBatchUpdate();
+            stepper.endBatchUpdate();
+
+            assertThat(stepper.isLayoutRequested()).isFalse();
+        }
+
+        @Test
+        public void bind_BeforeAttach_ShouldBuildStepsSoTheStepperCanBeMeasured() {
+            stepper.bind(new StepperState.Builder().addStep("title").setActive(true).build());
+
+            assertThat(stepper.steps).hasSize(1);
+            assertThat(stepper.getActiveStepIndex()).isEqualTo(0);
+        }
+
+        @Test
+        public void bind_InBatch_ShouldDeferLayoutUntilBatchEnds() {
+            layoutStepper();
+
+            stepper.beginBatchUpdate();
+            stepper.bind(new StepperState.Builder().addStep("1").addStep("2").setActive(true).build());
+            assertThat(stepper.isLayoutRequested()).isFalse();
+
+            stepper.endBatchUpdate();
+            assertThat(stepper.isLayoutRequested()).isTrue();
+        }
+
+        @Test(expected = IllegalStateException.class)
+        public void endBatchUpdate_NoBatch_ShouldThrow() {
+            stepper.endBatchUpdate();
+        }
+
+        @Test
+        public void setTracingEnabled_ShouldTraceUntilDisabled() {
+            VerticalStepper.setTracingEnabled(true);
+            try {
+                assertThat(StepperTrace.isEnabled()).isTrue();
+                stepper.bind(new StepperState.Builder().addStep("title").setActive(true).build());
+                stepper.doDraw(mock(Canvas.class));
+            } finally {
+                VerticalStepper.setTracingEnabled(false);
+            }
+
+            assertThat(StepperTrace.isEnabled()).isFalse();
+        }
     }
 
     public abstract static class GivenOneStep extends GivenAStepper {
@@ -298,7 +452,7 @@ public class VerticalStepperTest {
         public void givenOneStep() {
             mockedStep1 = new MockedStep();
 
-            stepper.steps.add(mockedStep1.step);
+            addStep(mockedStep1);
 
             clearInvocations(mockedStep1.innerView);
             clearInvocations(mockedStep1.innerLayoutParams);
@@ -483,7 +637,7 @@ public class VerticalStepperTest {
         public void layoutActiveViews_ShouldNotModifyInputRect() {
             Rect rect = new Rect(1, 2, 3, 4);
 
-            stepper.layoutActiveViews(rect, mockedStep1.step);
+            stepper.layoutActiveViews(rect, mockedStep1.step, 80);
 
             assertThat(rect).isEqualTo(new Rect(1, 2, 3, 4));
         }
@@ -512,6 +666,7 @@ public class VerticalStepperTest {
         public void attemptStepCompletion_HasValidator_ShoulClearErrorButNotCompleteIfIncomplete() {
             when(validator.validate(mockedStep1.innerView, false))
                     .thenReturn(ValidationResult.VALID_INCOMPLETE_RESULT);
+            stepper.controller.restoreState(0, true, false, true);
 
             stepper.attemptStepCompletion(mockedStep1.step);
 
@@ -523,7 +678,6 @@ public class VerticalStepperTest {
         public void attemptStepCompletion_HasValidator_ShouldCompleteIfStepValidAndComplete() {
             stepper.attemptStepCompletion(mockedStep1.step);
 
-            verify(mockedStep1.step).clearError();
             verify(mockedStep1.step).markComplete();
         }
 
@@ -537,9 +691,83 @@ public class VerticalStepperTest {
             stepper.attemptStepCompletion(mockedStep1.step);
 
             verify(mockedStep1.step, never()).setError(error);
-            verify(mockedStep1.step).clearError();
             verify(mockedStep1.step).markComplete();
         }
+
+        @Test
+        public void attemptStepCompletion_ErrorRes_ShouldSetErrorRes() {
+            when(validator.validate(mockedStep1.innerView, false))
+                    .thenReturn(ValidationResult.invalid(R.string.validation_error_required));
+
+            stepper.attemptStepCompletion(mockedStep1.step);
+
+            verify(mockedStep1.step).setError(R.string.validation_error_required);
+            verify(mockedStep1.step, never()).setError(anyString());
+        }
+
+        @Test
+        public void attemptStepCompletion_RulesFail_ShouldSetRuleErrorWithoutCallingValidator() {
+            String error = "rule error";
+            when(mockedStep1.step.validateRules()).thenReturn(new ValidationResult(error));
+
+            stepper.attemptStepCompletion(mockedStep1.step);
+
+            verify(validator, never()).validate(any(View.class), anyBoolean());
+            verify(mockedStep1.step).setError(error);
+        }
+    }
+
+    public static class GivenOneStepAndASlowStepValidator extends GivenOneStep {
+        private static final int VALIDATION_MILLIS = 5;
+        private static final int STEP_VIEW_ID = 31;
+
+        private SlowValidationListener listener;
+
+        @Before
+        public void givenOneStepAndASlowStepValidator() {
+            StepValidator validator = mock(StepValidator.class);
+            when(validator.validate(mockedStep1.innerView, false)).thenAnswer(new Answer<ValidationResult>() {
+                @Override
+                public ValidationResult answer(InvocationOnMock invocation) throws Throwable {
+                    Thread.sleep(VALIDATION_MILLIS);
+                    return ValidationResult.VALID_COMPLETE_RESULT;
+                }
+            });
+            when(mockedStep1.innerView.getId()).thenReturn(STEP_VIEW_ID);
+            stepper.setStepValidator(validator);
+
+            listener = mock(SlowValidationListener.class);
+            stepper.setSlowValidationListener(listener);
+        }
+
+        @Test
+        public void attemptStepCompletion_OverBudget_ShouldReportSlowValidation() {
+            stepper.setValidationTimeBudget(1, TimeUnit.MILLISECONDS);
+
+            stepper.attemptStepCompletion(mockedStep1.step);
+
+            ArgumentCaptor<Long> durationCaptor = ArgumentCaptor.forClass(Long.class);
+            verify(listener).onSlowValidation(eq(0), eq(STEP_VIEW_ID), durationCaptor.capture());
+            assertThat(durationCaptor.getValue())
+                    .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(VALIDATION_MILLIS));
+        }
+
+        @Test
+        public void attemptStepCompletion_UnderBudget_ShouldNotReport() {
+            stepper.setValidationTimeBudget(1, TimeUnit.SECONDS);
+
+            stepper.attemptStepCompletion(mockedStep1.step);
+
+            verify(listener, never()).onSlowValidation(anyInt(), anyInt(), anyLong());
+        }
+
+        @Test(expected = IllegalStateException.class)
+        public void attemptStepCompletion_OverStrictBudget_ShouldThrow() {
+            stepper.setValidationTimeBudget(1, TimeUnit.MILLISECONDS);
+            stepper.setStrictValidationBudget(true);
+
+            stepper.attemptStepCompletion(mockedStep1.step);
+        }
     }
 
     public static class GivenExactlyOneActiveStep extends GivenOneStep {
@@ -594,7 +822,7 @@ public class VerticalStepperTest {
         public void givenTwoSteps() {
             mockedStep2 = new MockedStep();
 
-            stepper.steps.add(mockedStep2.step);
+            addStep(mockedStep2);
 
             clearInvocations(mockedStep2.innerView);
             clearInvocations(mockedStep2.innerLayoutParams);
@@ -611,6 +839,44 @@ public class VerticalStepperTest {
     }
 
     public static class GivenExactlyTwoSteps extends GivenTwoSteps {
+        @Test
+        public void getStepCount_ShouldReturnNumberOfSteps() {
+            assertThat(stepper.getStepCount()).isEqualTo(2);
+        }
+
+        @Test
+        public void getActiveStepIndex_ShouldReturnExpandedStep() {
+            assertThat(stepper.getActiveStepIndex()).isEqualTo(-1);
+
+            mockActiveState(mockedStep2, true);
+
+            assertThat(stepper.getActiveStepIndex()).isEqualTo(1);
+        }
+
+        @Test
+        public void goToStep_ShouldUpdateStatusIndex() {
+            when(mockedStep2.step.isActive()).thenReturn(true);
+            when(mockedStep2.step.isComplete()).thenReturn(true);
+
+            stepper.goToStep(1);
+
+            assertThat(stepper.getActiveStepIndex()).isEqualTo(1);
+            assertThat(stepper.getCompletedCount()).isEqualTo(1);
+        }
+
+        @Test
+        public void attemptStepCompletion_Invalid_ShouldCountError() {
+            when(mockedStep2.step.hasError()).thenReturn(true);
+            StepValidator validator = mock(StepValidator.class);
+            when(validator.validate(mockedStep2.innerView, false)).thenReturn(new ValidationResult("error"));
+            stepper.setStepValidator(validator);
+
+            stepper.attemptStepCompletion(mockedStep2.step);
+
+            assertThat(stepper.getErrorCount()).isEqualTo(1);
+            assertThat(stepper.getFirstErrorIndex()).isEqualTo(1);
+        }
+
         @Test
         public void onSaveInstanceState_ShouldSaveStepStates() {
             Parcelable state = stepper.onSaveInstanceState();
@@ -709,6 +975,496 @@ public class VerticalStepperTest {
         }
     }
 
+    public static class GivenTwoInitializedSteps extends GivenAStepper {
+        View stepView1;
+        View stepView2;
+
+        @Before
+        public void givenTwoInitializedSteps() {
+            stepView1 = createStepView(1);
+            stepView2 = createStepView(2);
+            stepper.addView(stepView1);
+            stepper.addView(stepView2);
+            stepper.initSteps(null);
+        }
+
+        @Test
+        public void onAttachedToWindow_Reattached_ShouldReuseSteps() {
+            Step step1 = stepper.steps.get(0);
+            int childCount = stepper.getChildCount();
+
+            stepper.onAttachedToWindow();
+
+            assertThat(stepper.steps).hasSize(2);
+            assertThat(stepper.steps.get(0)).isSameAs(step1);
+            assertThat(stepper.getChildCount()).isEqualTo(childCount);
+        }
+
+        @Test
+        public void onAttachedToWindow_ReattachedWithSavedState_ShouldRestoreExistingSteps() {
+            Step step2 = stepper.steps.get(1);
+            List<Step.State> states = Arrays.asList(new Step.State(2, true, true, null, "summary"));
+            stepper.onRestoreInstanceState(new VerticalStepper.SavedState(View.BaseSavedState.EMPTY_STATE, states));
+
+            stepper.onAttachedToWindow();
+
+            assertThat(stepper.steps.get(1)).isSameAs(step2);
+            assertThat(step2.isActive()).isTrue();
+            assertThat(step2.isComplete()).isTrue();
+            assertThat(stepper.getActiveStepIndex()).isEqualTo(1);
+        }
+
+        @Test
+        public void addStep_ShouldInsertStepAndShiftLaterSteps() {
+            int childCount = stepper.getChildCount();
+            View stepView3 = createStepView(3);
+
+            stepper.addStep(stepView3, 1);
+
+            assertThat(stepper.steps).hasSize(3);
+            assertThat(stepper.steps.get(1).getInnerView()).isSameAs(stepView3);
+            assertThat(stepper.getStepIndex(3)).isEqualTo(1);
+            assertThat(stepper.getStepIndex(2)).isEqualTo(2);
+            assertThat(stepper.statusIndex.size()).isEqualTo(3);
+            assertThat(stepper.getChildCount()).isEqualTo(childCount + 3);
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void addStep_NoStepLayoutParams_ShouldThrow() {
+            stepper.addStep(new View(activity));
+        }
+
+        @Test
+        public void removeStep_ShouldRemoveStepAndItsViews() {
+            Step step1 = stepper.steps.get(0);
+            stepper.goToStep(1);
+
+            stepper.removeStep(stepView1);
+
+            assertThat(stepper.steps).hasSize(1);
+            assertThat(stepper.getStepIndex(1)).isEqualTo(-1);
+            assertThat(stepper.getStepIndex(2)).isEqualTo(0);
+            assertThat(stepper.getActiveStepIndex()).isEqualTo(0);
+            assertThat(stepper.getChildCount()).isEqualTo(3);
+            assertThat(step1.getTouchView().getParent()).isNull();
+            assertThat(step1.getContinueButton().getParent()).isNull();
+        }
+
+        private void runFrames() {
+            for (int i = 0; i < StepperTransitionMetrics.MAX_FRAMES; i++) {
+                Robolectric.flushForegroundThreadScheduler();
+            }
+        }
+
+        @Test
+        public void setMetricsListener_HeaderTapThenDraw_ShouldReportTransition() {
+            StepperMetricsListener listener = mock(StepperMetricsListener.class);
+            stepper.setMetricsListener(listener);
+
+            stepper.steps.get(1).getTouchView().performClick();
+            stepper.onDraw(new Canvas());
+            runFrames();
+
+            verify(listener).onTransitionMetrics(eq(StepperMetricsListener.TRANSITION_HEADER_TAP), eq(1), eq(0L),
+                    eq(0L), eq(0L), anyLong(), anyLong());
+            verifyNoMoreInteractions(listener);
+        }
+
+        @Test
+        public void setMetricsListener_ContinueTapWithoutDraw_ShouldReportAfterFrames() {
+            StepperMetricsListener listener = mock(StepperMetricsListener.class);
+            stepper.setMetricsListener(listener);
+            stepper.goToStep(0);
+
+            stepper.steps.get(0).getContinueButton().performClick();
+            runFrames();
+
+            verify(listener).onTransitionMetrics(eq(StepperMetricsListener.TRANSITION_CONTINUE), eq(0), anyLong(),
+                    eq(0L), eq(0L), eq(0L), anyLong());
+            verifyNoMoreInteractions(listener);
+        }
+
+        @Test
+        public void setMetricsListener_Null_ShouldStopReporting() {
+            StepperMetricsListener listener = mock(StepperMetricsListener.class);
+            stepper.setMetricsListener(listener);
+            Robolectric.getForegroundThreadScheduler().pause();
+
+            stepper.steps.get(1).getTouchView().performClick();
+            stepper.setMetricsListener(null);
+            runFrames();
+
+            verifyZeroInteractions(listener);
+        }
+
+        private void measureLayoutAndDraw() {
+            stepper.doMeasurement(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+            stepper.onLayout(true, 0, 0, stepper.getMeasuredWidth(), stepper.getMeasuredHeight());
+            stepper.doDraw(new Canvas());
+        }
+
+        @Test
+        public void setDebugOverlayEnabled_Disabled_ShouldNotRecordTimes() {
+            measureLayoutAndDraw();
+
+            assertThat(stepper.isDebugOverlayEnabled()).isFalse();
+            assertThat(stepper.debugOverlay.getCapacity()).isEqualTo(0);
+        }
+
+        @Test
+        public void setDebugOverlayEnabled_ShouldRecordTimesPerStep() {
+            stepper.setDebugOverlayEnabled(true);
+            stepper.goToStep(0);
+
+            measureLayoutAndDraw();
+            stepper.steps.get(0).getContinueButton().performClick();
+
+            StepperDebugOverlay overlay = stepper.debugOverlay;
+            assertThat(stepper.isDebugOverlayEnabled()).isTrue();
+            assertThat(overlay.getMeasureNanos(0)).isGreaterThan(0);
+            assertThat(overlay.getMeasureNanos(1)).isGreaterThan(0);
+            assertThat(overlay.getLayoutNanos(1)).isGreaterThan(0);
+            assertThat(overlay.getDrawNanos(1)).isGreaterThan(0);
+            assertThat(overlay.getValidationNanos(0)).isGreaterThanOrEqualTo(0);
+            assertThat(overlay.getValidationNanos(1)).isEqualTo(-1);
+        }
+
+        @Test
+        public void drawDebugOverlay_ShouldDrawALinePerStepAndTheChildCount() {
+            stepper.setDebugOverlayEnabled(true);
+            measureLayoutAndDraw();
+            Canvas canvas = mock(Canvas.class);
+
+            stepper.drawDebugOverlay(canvas);
+
+            verify(canvas, times(3)).drawText(any(CharSequence.class), eq(0), anyInt(), anyFloat(), anyFloat(),
+                    any(Paint.class));
+        }
+
+        @Test
+        public void dump_ShouldWriteSummaryAndALinePerStep() {
+            stepper.goToStep(1);
+            StringWriter out = new StringWriter();
+
+            stepper.dump(new PrintWriter(out));
+
+            String dump = out.toString();
+            assertThat(dump).contains("VerticalStepper: steps=2 children=6 activeIndex=1 active=1");
+            assertThat(dump).contains("pending: draftWrite=false draftToApply=false stepModels=false");
+            assertThat(dump).contains("savedState: not written");
+            assertThat(dump).contains("step 0: id=0x1 flags=----- ");
+            assertThat(dump).contains("step 1: id=0x2 flags=A---- ");
+        }
+
+        @Test
+        public void dump_AfterSave_ShouldWriteSizeOfLastSavedState() {
+            Parcel parcel = Parcel.obtain();
+            stepper.onSaveInstanceState().writeToParcel(parcel, 0);
+            parcel.recycle();
+            StringWriter out = new StringWriter();
+
+            stepper.dump(new PrintWriter(out));
+
+            assertThat(out.toString())
+                    .contains("savedState: " + stepper.computeSavedStateSize() + " bytes at the last save");
+        }
+
+        private StepModel createModel(String key, View view, String title) {
+            return new StepModel.Builder(key, view, title).build();
+        }
+
+        @Test
+        public void setSteps_ShouldReplaceStepsWithoutKeys() {
+            View viewA = new View(activity);
+            StepModel modelA = new StepModel.Builder("a", viewA, "A").setSummary("summary").setOptional(true).build();
+
+            stepper.setSteps(Arrays.asList(modelA));
+
+            assertThat(stepper.steps).hasSize(1);
+            Step step = stepper.steps.get(0);
+            assertThat(step.getInnerView()).isSameAs(viewA);
+            assertThat(step.getKey()).isEqualTo("a");
+            assertThat(step.getTitle()).isEqualTo("A");
+            assertThat(step.getSummary()).isEqualTo("summary");
+            assertThat(step.isOptional()).isTrue();
+            assertThat(stepper.getOptionalCount()).isEqualTo(1);
+            assertThat(stepView1.getParent()).isNull();
+        }
+
+        @Test
+        public void setSteps_SameKeys_ShouldReuseAndReorderSteps() {
+            View viewA = new View(activity);
+            View viewB = new View(activity);
+            View viewC = new View(activity);
+            stepper.setSteps(Arrays.asList(createModel("a", viewA, "A"), createModel("b", viewB, "B"),
+                    createModel("c", viewC, "C")));
+            Step stepA = stepper.steps.get(0);
+            Step stepC = stepper.steps.get(2);
+            stepper.goToStep(2);
+
+            stepper.setSteps(Arrays.asList(createModel("c", viewC, "C"), createModel("a", viewA, "A2")));
+
+            assertThat(stepper.steps).containsExactly(stepC, stepA);
+            assertThat(stepC.getIndex()).isEqualTo(0);
+            assertThat(stepA.getIndex()).isEqualTo(1);
+            assertThat(stepA.getTitle()).isEqualTo("A2");
+            assertThat(stepper.getActiveStepIndex()).isEqualTo(0);
+            assertThat(viewB.getParent()).isNull();
+        }
+
+        @Test
+        public void setSteps_MoveFirstToLast_ShouldOnlyMoveThatStep() {
+            List<StepModel> models = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                models.add(createModel("k" + i, new View(activity), "T" + i));
+            }
+            stepper.setSteps(models);
+            List<Step> expected = new ArrayList<>(stepper.steps.subList(1, 5));
+            expected.add(stepper.steps.get(0));
+            List<StepModel> reordered = new ArrayList<>(models.subList(1, 5));
+            reordered.add(models.get(0));
+            Map<String, Step> stepsByKey = new HashMap<>();
+            for (Step step : stepper.steps) {
+                stepsByKey.put(step.getKey(), step);
+            }
+
+            assertThat(VerticalStepper.findStepsThatKeepTheirPosition(reordered, stepsByKey))
+                    .containsExactly(true, true, true, true, false);
+
+            stepper.setSteps(reordered);
+
+            assertThat(stepper.steps).containsExactlyElementsOf(expected);
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(stepper.steps.get(i).getIndex()).isEqualTo(i);
+            }
+        }
+
+        @Test
+        public void setSteps_ShuffledWithNewSteps_ShouldMatchModelOrder() {
+            List<StepModel> models = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                models.add(createModel("k" + i, new View(activity), "T" + i));
+            }
+            stepper.setSteps(models);
+            View newView = new View(activity);
+            List<StepModel> reordered = Arrays.asList(models.get(3), createModel("new", newView, "N"),
+                    models.get(0), models.get(5), models.get(1), models.get(4));
+
+            stepper.setSteps(reordered);
+
+            assertThat(stepper.steps).hasSize(6);
+            for (int i = 0; i < reordered.size(); i++) {
+                Step step = stepper.steps.get(i);
+                assertThat(step.getInnerView()).isSameAs(reordered.get(i).getView());
+                assertThat(step.getIndex()).isEqualTo(i);
+            }
+        }
+
+        @Test
+        public void undo_ShouldRestoreStatesBeforeLastTransition() {
+            stepper.setUndoHistorySize(10);
+            stepper.goToStep(0);
+            stepper.goToStep(1);
+
+            assertThat(stepper.undo()).isTrue();
+
+            assertThat(stepper.steps.get(0).isActive()).isTrue();
+            assertThat(stepper.steps.get(1).isActive()).isFalse();
+            assertThat(stepper.getActiveStepIndex()).isEqualTo(0);
+
+            assertThat(stepper.redo()).isTrue();
+
+            assertThat(stepper.steps.get(0).isActive()).isFalse();
+            assertThat(stepper.steps.get(1).isActive()).isTrue();
+        }
+
+        @Test
+        public void undo_HistoryDisabled_ShouldDoNothing() {
+            stepper.goToStep(1);
+
+            assertThat(stepper.canUndo()).isFalse();
+            assertThat(stepper.undo()).isFalse();
+        }
+
+        @Test
+        public void addStep_ShouldClearHistory() {
+            stepper.setUndoHistorySize(10);
+            stepper.goToStep(1);
+
+            stepper.addStep(createStepView(3));
+
+            assertThat(stepper.canUndo()).isFalse();
+        }
+
+        @Test
+        public void bind_SameStepCount_ShouldReuseSteps() {
+            Step step1 = stepper.steps.get(0);
+            Step step2 = stepper.steps.get(1);
+            StepperState state = new StepperState.Builder()
+                    .addStep("first").setComplete(true).setSummary("summary")
+                    .addStep("second").setActive(true).setError("error")
+                    .build();
+
+            stepper.bind(state);
+
+            assertThat(stepper.steps).containsExactly(step1, step2);
+            assertThat(step1.getTitle()).isEqualTo("first");
+            assertThat(step1.isComplete()).isTrue();
+            assertThat(step1.getSubtitle()).isEqualTo("summary");
+            assertThat(step2.getTitle()).isEqualTo("second");
+            assertThat(step2.isActive()).isTrue();
+            assertThat(step2.hasError()).isTrue();
+            assertThat(stepper.getActiveStepIndex()).isEqualTo(1);
+            assertThat(stepper.getErrorCount()).isEqualTo(1);
+            assertThat(step2.getInnerView().getVisibility()).isEqualTo(View.VISIBLE);
+        }
+
+        @Test
+        public void bind_WithHistory_ShouldRestartHistoryFromBoundState() {
+            stepper.setUndoHistorySize(10);
+            stepper.goToStep(1);
+
+            stepper.bind(new StepperState.Builder().addStep("first").setActive(true).addStep("second").build());
+
+            assertThat(stepper.canUndo()).isFalse();
+
+            stepper.goToStep(1);
+            assertThat(stepper.undo()).isTrue();
+            assertThat(stepper.getActiveStepIndex()).isEqualTo(0);
+        }
+
+        @Test
+        public void bind_DifferentStepCount_ShouldAddOrRemoveSteps() {
+            stepper.bind(new StepperState.Builder().addStep("1").addStep("2").addStep("3").build());
+
+            assertThat(stepper.steps).hasSize(3);
+            assertThat(stepper.steps.get(2).getTitle()).isEqualTo("3");
+
+            stepper.bind(new StepperState.Builder().addStep("1").build());
+
+            assertThat(stepper.steps).hasSize(1);
+            assertThat(stepper.statusIndex.size()).isEqualTo(1);
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void setSteps_DuplicateKeys_ShouldThrow() {
+            stepper.setSteps(Arrays.asList(createModel("a", new View(activity), "A"),
+                    createModel("a", new View(activity), "B")));
+        }
+    }
+
+    public static class GivenSavedStepStates extends GivenAnActivity {
+        private static final int STEP_COUNT = 40;
+
+        List<Step.State> states;
+
+        @Before
+        public void givenSavedStepStates() {
+            states = new ArrayList<>();
+            for (int i = 0; i < STEP_COUNT; i++) {
+                String error = i == 33 ? "error" : null;
+                String summary = i % 2 == 0 ? "summary" : null;
+                states.add(new Step.State(i % 3 == 0 ? View.NO_ID : i, i == 33, i < 33, error, summary));
+            }
+        }
+
+        @Test
+        public void writeStepStates_ShouldRoundTrip() {
+            Parcel parcel = Parcel.obtain();
+            VerticalStepper.SavedState.writeStepStates(parcel, states);
+            parcel.setDataPosition(0);
+
+            List<Step.State> restored = VerticalStepper.SavedState.readStepStates(parcel);
+            parcel.recycle();
+
+            assertThat(restored).hasSize(STEP_COUNT);
+            for (int i = 0; i < STEP_COUNT; i++) {
+                Step.State expected = states.get(i);
+                Step.State actual = restored.get(i);
+                assertThat(actual.stepViewId).isEqualTo(expected.stepViewId);
+                assertThat(actual.active).isEqualTo(expected.active);
+                assertThat(actual.complete).isEqualTo(expected.complete);
+                assertThat(actual.error).isEqualTo(expected.error);
+                assertThat(actual.summary).isEqualTo(expected.summary);
+            }
+        }
+
+        @Test
+        public void writeStepStates_RepeatedStrings_ShouldOnlyWriteThemOnce() {
+            List<Step.State> distinctStates = new ArrayList<>();
+            for (int i = 0; i < STEP_COUNT; i++) {
+                Step.State state = states.get(i);
+                String summary = state.summary != null ? "summary" + i : null;
+                distinctStates.add(
+                        new Step.State(state.stepViewId, state.active, state.complete, state.error, summary));
+            }
+
+            int size = getWrittenSize(states);
+            int distinctSize = getWrittenSize(distinctStates);
+
+            Parcel oneString = Parcel.obtain();
+            oneString.writeString("summary");
+            int stringSize = oneString.dataSize();
+            oneString.recycle();
+
+            assertThat(size).isLessThanOrEqualTo(distinctSize - (STEP_COUNT / 2 - 1) * stringSize);
+        }
+
+        private static int getWrittenSize(List<Step.State> states) {
+            Parcel parcel = Parcel.obtain();
+            VerticalStepper.SavedState.writeStepStates(parcel, states);
+            int size = parcel.dataSize();
+            parcel.recycle();
+            return size;
+        }
+
+        @Test
+        public void writeStepStates_ClearedError_ShouldNotAddAnEntry() {
+            Parcel cleared = Parcel.obtain();
+            VerticalStepper.SavedState.writeStepStates(cleared,
+                    Arrays.asList(new Step.State(1, false, true, "", null)));
+            int clearedSize = cleared.dataSize();
+            cleared.recycle();
+
+            Parcel untouched = Parcel.obtain();
+            VerticalStepper.SavedState.writeStepStates(untouched,
+                    Arrays.asList(new Step.State(1, false, true, null, null)));
+            int untouchedSize = untouched.dataSize();
+            untouched.recycle();
+
+            assertThat(clearedSize).isEqualTo(untouchedSize);
+        }
+
+        @Test
+        public void generateState_CompletedStep_ShouldHaveDefaultText() {
+            VerticalStepper stepper = new VerticalStepper(activity);
+            stepper.addView(createStepView(1));
+            stepper.initSteps(null);
+            Step step = stepper.steps.get(0);
+
+            stepper.attemptStepCompletion(step);
+
+            assertThat(step.isComplete()).isTrue();
+            assertThat(step.generateState().hasDefaultText()).isTrue();
+        }
+
+        @Test
+        public void computeSavedStateSize_ShouldMeasureStepStates() {
+            VerticalStepper stepper = new VerticalStepper(activity);
+            Step step = mock(Step.class);
+            when(step.generateState()).thenReturn(new Step.State(View.NO_ID, true, false, null, "summary"));
+            stepper.steps.add(step);
+
+            Parcel parcel = Parcel.obtain();
+            VerticalStepper.SavedState.writeStepStates(parcel, Arrays.asList(step.generateState()));
+            int expectedSize = parcel.dataSize();
+            parcel.recycle();
+
+            assertThat(stepper.computeSavedStateSize()).isEqualTo(expectedSize);
+        }
+    }
+
     public static abstract class GivenStepperSpy extends GivenAStepper {
         VerticalStepper stepperSpy;
 
@@ -751,10 +1507,15 @@ public class VerticalStepperTest {
     }
 
     public static class GivenStepperSpyWithStubbedInitStepsMethods extends GivenStepperSpy {
+        View child1;
+        View child2;
+
         @Before
         public void givenStepperSpyWithStubbedInitStepsMethods() {
-            View child1 = mock(View.class);
-            View child2 = mock(View.class);
+            child1 = mock(View.class);
+            child2 = mock(View.class);
+            when(child1.getId()).thenReturn(View.NO_ID);
+            when(child2.getId()).thenReturn(View.NO_ID);
             VerticalStepper.LayoutParams lp = mock(VerticalStepper.LayoutParams.class);
             when(lp.getTitle()).thenReturn("title");
             when(child1.getLayoutParams()).thenReturn(lp);
@@ -785,8 +1546,8 @@ public class VerticalStepperTest {
         public void initSteps_ShouldSetStatesForSteps() {
             String summary = "summary";
             String error = "error";
-            List<Step.State> states = Arrays.asList(new Step.State(false, true, null, summary),
-                    new Step.State(true, false, error, null));
+            List<Step.State> states = Arrays.asList(new Step.State(View.NO_ID, false, true, null, summary),
+                    new Step.State(View.NO_ID, true, false, error, null));
             VerticalStepper.SavedState state = new VerticalStepper.SavedState(mock(Parcelable.class), states);
 
             stepperSpy.initSteps(state);
@@ -803,6 +1564,38 @@ public class VerticalStepperTest {
             assertThat(step2.hasError()).isTrue();
             assertThat(step2.getSubtitle()).isEqualTo(error);
         }
+
+        @Test
+        public void initSteps_StepsWithIds_ShouldRestoreStatesById() {
+            when(child1.getId()).thenReturn(1);
+            when(child2.getId()).thenReturn(2);
+            List<Step.State> states = Arrays.asList(new Step.State(2, true, false, null, null),
+                    new Step.State(3, false, true, null, null),
+                    new Step.State(1, false, true, null, null));
+            VerticalStepper.SavedState state = new VerticalStepper.SavedState(mock(Parcelable.class), states);
+
+            stepperSpy.initSteps(state);
+
+            Step step1 = stepperSpy.steps.get(0);
+            assertThat(step1.isActive()).isFalse();
+            assertThat(step1.isComplete()).isTrue();
+
+            Step step2 = stepperSpy.steps.get(1);
+            assertThat(step2.isActive()).isTrue();
+            assertThat(step2.isComplete()).isFalse();
+        }
+
+        @Test
+        public void initSteps_StepWithoutSavedState_ShouldUseDefaultState() {
+            when(child1.getId()).thenReturn(1);
+            List<Step.State> states = Arrays.asList(new Step.State(View.NO_ID, false, true, null, null));
+            VerticalStepper.SavedState state = new VerticalStepper.SavedState(mock(Parcelable.class), states);
+
+            stepperSpy.initSteps(state);
+
+            assertThat(stepperSpy.steps.get(0).isComplete()).isFalse();
+            assertThat(stepperSpy.steps.get(1).isComplete()).isTrue();
+        }
     }
 
     public static abstract class GivenStepperSpyWithTwoSteps extends GivenStepperSpy {
@@ -813,26 +1606,25 @@ public class VerticalStepperTest {
         public void givenStepperSpyWithTwoSteps() {
             mockedStep1 = new MockedStep();
             mockedStep2 = new MockedStep();
-            stepperSpy.steps.add(mockedStep1.step);
-            stepperSpy.steps.add(mockedStep2.step);
+            addStep(mockedStep1);
+            addStep(mockedStep2);
         }
     }
 
     public static class GivenStepperSpyWithExactlyTwoSteps extends GivenStepperSpyWithTwoSteps {
         @Test
-        public void touchViewOnClickListener_ShouldCallCollapseOtherStepsAndToggle() {
+        public void touchViewOnClickListener_ShouldCollapseOtherStepsAndToggle() {
             ArgumentCaptor<View.OnClickListener> captor = ArgumentCaptor.forClass(View.OnClickListener.class);
             stepperSpy.initTouchView(mockedStep1.step);
             verify(mockedStep1.touchView).setOnClickListener(captor.capture());
             View.OnClickListener clickListenerSpy = spy(captor.getValue());
-
-            doNothing().when(stepperSpy).collapseOtherSteps(mockedStep1.step);
-            doNothing().when(stepperSpy).toggleStepExpandedState(mockedStep1.step);
+            mockActiveState(mockedStep2, true);
 
             clickListenerSpy.onClick(mock(View.class));
 
-            verify(stepperSpy).collapseOtherSteps(mockedStep1.step);
-            verify(stepperSpy).toggleStepExpandedState(mockedStep1.step);
+            verify(mockedStep2.step).setActive(false);
+            verify(mockedStep1.step).setActive(true);
+            assertThat(stepperSpy.controller.getActiveStepIndex()).isEqualTo(0);
         }
 
         @Test
@@ -869,9 +1661,8 @@ public class VerticalStepperTest {
 
             stepperSpy.attemptStepCompletion(mockedStep1.step);
 
-            verify(mockedStep1.step).clearError();
             verify(mockedStep1.step).markComplete();
-            verify(stepperSpy).toggleStepExpandedState(mockedStep1.step);
+            verify(mockedStep1.step).setActive(false);
         }
 
         @Test
@@ -881,7 +1672,7 @@ public class VerticalStepperTest {
 
             stepperSpy.attemptStepCompletion(mockedStep1.step);
 
-            verify(stepperSpy).toggleStepExpandedState(mockedStep2.step);
+            verify(mockedStep2.step).setActive(true);
         }
 
         @Test
@@ -891,38 +1682,33 @@ public class VerticalStepperTest {
             stepperSpy.attemptStepCompletion(mockedStep2.step);
 
             verify(stepperSpy).attemptStepCompletion(mockedStep2.step);
-            verify(stepperSpy).toggleStepExpandedState(mockedStep2.step);
-            verify(stepperSpy).toggleActiveState(mockedStep2.step);
-            verify(stepperSpy).syncVisibilityWithActiveState(mockedStep2.step);
             verifyNoMoreInteractions(stepperSpy);
+            verify(mockedStep2.step).setActive(false);
+            verify(mockedStep1.step, never()).setActive(anyBoolean());
         }
 
         @Test
-        public void collapseOtherSteps_ShouldCollapseAnyOtherActiveSteps() {
-            mockActiveState(mockedStep1, true);
-            mockActiveState(mockedStep2, true);
+        public void renderStepChange_Active_ShouldShowControllerStateAndSyncVisibility() {
+            stepperSpy.controller.restoreState(0, true, false, false);
 
-            stepperSpy.collapseOtherSteps(mockedStep1.step);
+            stepperSpy.renderStepChange(mockedStep1.step, StepperController.CHANGED_ACTIVE);
 
-            verify(stepperSpy, never()).toggleStepExpandedState(mockedStep1.step);
-            verify(stepperSpy).toggleStepExpandedState(mockedStep2.step);
+            verify(mockedStep1.step).setActive(true);
+            verify(stepperSpy).syncVisibilityWithActiveState(mockedStep1.step);
+            verify(mockedStep1.step, never()).clearError();
+            verify(mockedStep1.step, never()).markComplete();
         }
 
         @Test
-        public void collapseOtherSteps_ShouldNotCollapseListenerStep() {
-            mockActiveState(mockedStep1, true);
-
-            stepper.collapseOtherSteps(mockedStep1.step);
+        public void renderStepChange_CompleteAndError_ShouldShowControllerState() {
+            stepperSpy.controller.restoreState(0, false, false, false);
 
-            verify(stepperSpy, never()).toggleStepExpandedState(mockedStep1.step);
-        }
-
-        @Test
-        public void toggleStepExpandedState_ShouldToggleActiveStateAndSyncVisibility() {
-            stepperSpy.toggleStepExpandedState(mockedStep1.step);
+            stepperSpy.renderStepChange(mockedStep1.step,
+                    StepperController.CHANGED_COMPLETE | StepperController.CHANGED_ERROR);
 
-            verify(stepperSpy).toggleActiveState(mockedStep1.step);
-            verify(stepperSpy).syncVisibilityWithActiveState(mockedStep1.step);
+            verify(mockedStep1.step).clearError();
+            verify(mockedStep1.step).markIncomplete();
+            verify(mockedStep1.step, never()).setActive(anyBoolean());
         }
 
         @Test
@@ -975,10 +1761,43 @@ public class VerticalStepperTest {
             innerViewId2 = 22;
             when(mockedStep1.innerView.getId()).thenReturn(innerViewId1);
             when(mockedStep2.innerView.getId()).thenReturn(innerViewId2);
+            stepperSpy.stepsById.put(innerViewId1, mockedStep1.step);
+            stepperSpy.stepsById.put(innerViewId2, mockedStep2.step);
 
             doNothing().when(stepperSpy).invalidate();
         }
 
+        @Test
+        public void getStepIndex_ShouldReturnIndexOfStepWithId() {
+            assertThat(stepperSpy.getStepIndex(innerViewId2)).isEqualTo(1);
+            assertThat(stepperSpy.getStepIndex(-1)).isEqualTo(-1);
+        }
+
+        @Test
+        public void goToStep_ShouldCollapseOtherStepsAndExpandStep() {
+            mockActiveState(mockedStep1, true);
+
+            stepperSpy.goToStep(1);
+
+            verify(mockedStep1.step).setActive(false);
+            verify(mockedStep2.step).setActive(true);
+        }
+
+        @Test
+        public void goToStep_ActiveStep_ShouldNotCollapseIt() {
+            mockActiveState(mockedStep2, true);
+
+            stepperSpy.goToStep(1);
+
+            verify(mockedStep1.step, never()).setActive(anyBoolean());
+            verify(mockedStep2.step, never()).setActive(anyBoolean());
+        }
+
+        @Test(expected = IndexOutOfBoundsException.class)
+        public void goToStep_InvalidIndex_ShouldThrow() {
+            stepperSpy.goToStep(2);
+        }
+
         @Test
         public void setStepSummary_UnrecognizedViewId_ShouldDoNothing() {
             stepperSpy.setStepSummary(-1, "summary");
@@ -995,6 +1814,130 @@ public class VerticalStepperTest {
             verify(mockedStep1.step).setSummary(summary);
             verify(stepperSpy).invalidate();
         }
+
+        @Test
+        public void notifyStepChanged_ShouldMarkDependentStepForRevalidation() {
+            stepperSpy.addStepDependency(innerViewId2, innerViewId1);
+
+            stepperSpy.notifyStepChanged(innerViewId1);
+
+            verify(mockedStep2.step).setNeedsRevalidation(true);
+            verify(mockedStep1.step, never()).setNeedsRevalidation(anyBoolean());
+        }
+
+        @Test
+        public void notifyStepChanged_NoDependents_ShouldNotMarkAnySteps() {
+            stepperSpy.addStepDependency(innerViewId2, innerViewId1);
+
+            stepperSpy.notifyStepChanged(innerViewId2);
+
+            verify(mockedStep1.step, never()).setNeedsRevalidation(anyBoolean());
+            verify(mockedStep2.step, never()).setNeedsRevalidation(anyBoolean());
+        }
+
+        @Test
+        public void attemptStepCompletion_ShouldRevalidateDependentSteps() {
+            StepValidator validator = mock(StepValidator.class);
+            when(validator.validate(any(View.class), anyBoolean())).thenReturn(ValidationResult.VALID_COMPLETE_RESULT);
+            stepperSpy.setStepValidator(validator);
+            stepperSpy.addStepDependency(innerViewId2, innerViewId1);
+            when(mockedStep2.step.needsRevalidation()).thenReturn(true);
+            when(mockedStep2.step.isValidated()).thenReturn(true);
+
+            stepperSpy.attemptStepCompletion(mockedStep1.step);
+
+            verify(mockedStep2.step).setNeedsRevalidation(true);
+            verify(validator).validate(mockedStep1.innerView, false);
+            verify(validator).validate(mockedStep2.innerView, false);
+        }
+    }
+
+    public static class GivenStepperSpyWithTwoStepsNeedingRevalidation extends GivenStepperSpyWithTwoSteps {
+        private StepValidator validator;
+
+        @Before
+        public void givenStepperSpyWithTwoStepsNeedingRevalidation() {
+            validator = mock(StepValidator.class);
+            when(validator.validate(any(View.class), anyBoolean())).thenReturn(ValidationResult.VALID_COMPLETE_RESULT);
+            stepperSpy.setStepValidator(validator);
+
+            int changedStepViewId = 20;
+            when(mockedStep1.innerView.getId()).thenReturn(21);
+            when(mockedStep2.innerView.getId()).thenReturn(22);
+            stepperSpy.stepsById.put(21, mockedStep1.step);
+            stepperSpy.stepsById.put(22, mockedStep2.step);
+            stepperSpy.addStepDependency(21, changedStepViewId);
+            stepperSpy.addStepDependency(22, changedStepViewId);
+            stepperSpy.notifyStepChanged(changedStepViewId);
+
+            when(mockedStep1.step.needsRevalidation()).thenReturn(true);
+            when(mockedStep2.step.needsRevalidation()).thenReturn(true);
+        }
+
+        @Test
+        public void revalidateSteps_ShouldOnlyValidateStepsThatWereValidated() {
+            when(mockedStep2.step.isValidated()).thenReturn(true);
+
+            stepperSpy.revalidateSteps();
+
+            verify(validator, never()).validate(same(mockedStep1.innerView), anyBoolean());
+            verify(validator).validate(mockedStep2.innerView, false);
+            verify(mockedStep2.step).setNeedsRevalidation(false);
+            verify(stepperSpy).requestLayout();
+        }
+
+        @Test
+        public void revalidateSteps_Invalid_ShouldSetError() {
+            String error = "error";
+            when(mockedStep1.step.isValidated()).thenReturn(true);
+            when(validator.validate(mockedStep1.innerView, false)).thenReturn(new ValidationResult(error));
+
+            stepperSpy.revalidateSteps();
+
+            verify(mockedStep1.step).setError(error);
+        }
+
+        @Test
+        public void revalidateSteps_ValidIncomplete_ShouldMarkIncomplete() {
+            when(mockedStep1.step.isValidated()).thenReturn(true);
+            when(validator.validate(mockedStep1.innerView, false))
+                    .thenReturn(ValidationResult.VALID_INCOMPLETE_RESULT);
+            stepperSpy.controller.restoreState(0, false, true, true);
+
+            stepperSpy.revalidateSteps();
+
+            verify(mockedStep1.step).clearError();
+            verify(mockedStep1.step).markIncomplete();
+            verify(mockedStep1.step, never()).markComplete();
+        }
+
+        @Test
+        public void revalidateSteps_Twice_ShouldOnlyRevalidateOnce() {
+            when(mockedStep2.step.isValidated()).thenReturn(true);
+
+            stepperSpy.revalidateSteps();
+            stepperSpy.revalidateSteps();
+
+            verify(validator).validate(mockedStep2.innerView, false);
+        }
+
+        @Test
+        public void revalidateSteps_UnvalidatedStep_ShouldStayMarkedUntilValidated() {
+            stepperSpy.revalidateSteps();
+            when(mockedStep1.step.isValidated()).thenReturn(true);
+
+            stepperSpy.revalidateSteps();
+
+            verify(validator).validate(mockedStep1.innerView, false);
+        }
+
+        @Test
+        public void revalidateSteps_NothingValidated_ShouldNotRelayout() {
+            stepperSpy.revalidateSteps();
+
+            verify(validator, never()).validate(any(View.class), anyBoolean());
+            verify(stepperSpy, never()).requestLayout();
+        }
     }
 
     public static class GivenStepperSpyWithTwoStepsAndStandardActiveDimensions extends GivenStepperSpyWithTwoSteps {
@@ -1097,8 +2040,11 @@ public class VerticalStepperTest {
 
         @Test
         public void doDraw_ShouldCallDrawConnectorOnce() {
-            int distanceToNextStep = 300;
-            when(mockedStep1.step.calculateYDistanceToNextStep()).thenReturn(distanceToNextStep);
+            int distanceToTextBottom = 260;
+            int bottomMargin = 40;
+            int distanceToNextStep = distanceToTextBottom + bottomMargin;
+            when(mockedStep1.step.calculateYDistanceToTextBottom()).thenReturn(distanceToTextBottom);
+            when(mockedStep1.step.getBottomMarginHeight()).thenReturn(bottomMargin);
 
             stepperSpy.doDraw(canvas);
 
@@ -1115,8 +2061,11 @@ public class VerticalStepperTest {
             int bottomPadding = 15;
             stepperSpy.setPadding(leftPadding, topPadding, rightPadding, bottomPadding);
 
-            int distanceToNextStep = 300;
-            when(mockedStep1.step.calculateYDistanceToNextStep()).thenReturn(distanceToNextStep);
+            int distanceToTextBottom = 260;
+            int bottomMargin = 40;
+            int distanceToNextStep = distanceToTextBottom + bottomMargin;
+            when(mockedStep1.step.calculateYDistanceToTextBottom()).thenReturn(distanceToTextBottom);
+            when(mockedStep1.step.getBottomMarginHeight()).thenReturn(bottomMargin);
 
             stepperSpy.doDraw(canvas);
 
@@ -1276,6 +2225,21 @@ public class VerticalStepperTest {
             verify(canvas).drawText(eq(stepNumberString), anyFloat(), anyFloat(), same(paint));
         }
 
+        @Test
+        public void drawIconText_SameStepNumberTwice_ShouldReuseString() {
+            when(mockedStep1.step.getIconTextPaint()).thenReturn(mock(TextPaint.class));
+            when(mockedStep1.step.getTempRectForIconTextBounds()).thenReturn(mock(Rect.class));
+            when(mockedStep1.step.getTempPointForIconTextCenter()).thenReturn(mock(PointF.class));
+
+            stepperSpy.drawIconText(canvas, mockedStep1.step, 2);
+            stepperSpy.drawIconText(canvas, mockedStep1.step, 2);
+
+            ArgumentCaptor<String> textCaptor = ArgumentCaptor.forClass(String.class);
+            verify(canvas, times(2)).drawText(textCaptor.capture(), anyFloat(), anyFloat(), any(TextPaint.class));
+            assertThat(textCaptor.getAllValues().get(0)).isEqualTo("2");
+            assertThat(textCaptor.getAllValues().get(1)).isSameAs(textCaptor.getAllValues().get(0));
+        }
+
         @Test
         public void drawTitle_ShouldDrawTextWithStepTitle() {
             TextPaint paint = mock(TextPaint.class);
@@ -1436,8 +2400,11 @@ public class VerticalStepperTest {
         @Test
         public void onLayout_ShouldAdjustNextTopForPreviousStepHeight() {
             InOrder order = inOrder(stepperSpy);
-            int distanceToNextStep = 400;
-            when(mockedStep1.step.calculateYDistanceToNextStep()).thenReturn(distanceToNextStep);
+            int distanceToTextBottom = 352;
+            int bottomMargin = 48;
+            int distanceToNextStep = distanceToTextBottom + bottomMargin;
+            when(mockedStep1.step.calculateYDistanceToTextBottom()).thenReturn(distanceToTextBottom);
+            when(mockedStep1.step.getBottomMarginHeight()).thenReturn(bottomMargin);
 
             final Rect firstRect = new Rect();
             final Rect secondRect = new Rect();
@@ -1546,6 +2513,30 @@ public class VerticalStepperTest {
                     .isEqualTo(bottom - top - stepperSpy.outerVerticalPadding - bottomPadding);
         }
 
+        @Test
+        public void onLayout_ShouldPlaceNextStepBelowMeasuredActiveViews() {
+            int distanceToTextBottom = 80;
+            int innerHeight = 400;
+            int continueHeight = 50;
+            int bottomMargin = 48;
+            when(mockedStep1.step.calculateYDistanceToTextBottom()).thenReturn(distanceToTextBottom);
+            when(mockedStep1.innerView.getMeasuredHeight()).thenReturn(innerHeight);
+            when(mockedStep1.continueButton.getMeasuredHeight()).thenReturn(continueHeight);
+            when(mockedStep1.step.getBottomMarginHeight()).thenReturn(bottomMargin);
+
+            final Rect firstRect = new Rect();
+            final Rect secondRect = new Rect();
+            doAnswer(new CaptureRectAnswer(firstRect))
+                    .when(stepperSpy).layoutTouchView(any(Rect.class), same(mockedStep1.touchView));
+            doAnswer(new CaptureRectAnswer(secondRect))
+                    .when(stepperSpy).layoutTouchView(any(Rect.class), same(mockedStep2.touchView));
+
+            stepperSpy.onLayout(true, 0, 0, 0, 0);
+
+            assertThat(secondRect.top)
+                    .isEqualTo(firstRect.top + distanceToTextBottom + innerHeight + continueHeight + bottomMargin);
+        }
+
         @Test
         public void onLayout_ShouldAdjustButtonsTopForInnerViewHeight() {
             InOrder order = inOrder(stepperSpy);